@@ -0,0 +1,32 @@
+package io.github.zeroone3010.geogpxparser;
+
+import io.github.zeroone3010.geogpxparser.generator.GpxGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes the Groundspeak .gpx files that the benchmarks parse. The files are always the same for the same parameters.
+ */
+final class BenchmarkFiles {
+
+    private BenchmarkFiles() { /* prevent */}
+
+    /**
+     * Creates a temporary .gpx file that is deleted when the JVM exits.
+     *
+     * @param waypoints The number of caches in the file.
+     * @param logs      The number of logs of each cache.
+     */
+    static File create(final int waypoints, final int logs) throws IOException {
+        final File file = File.createTempFile("benchmark-" + waypoints + "-" + logs + "-", ".gpx");
+        file.deleteOnExit();
+        new GpxGenerator()
+                .seed(waypoints * 31L + logs)
+                .caches(waypoints)
+                .logsPerCache(logs)
+                .descriptionLength(400)
+                .write(file);
+        return file;
+    }
+}
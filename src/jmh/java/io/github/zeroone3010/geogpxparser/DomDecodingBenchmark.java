@@ -0,0 +1,105 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long decoding a single waypoint from a DOM tree takes, comparing the single walk over the children of
+ * each element to searching the subtree for each field separately, which is how the DOM engine used to work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomDecodingBenchmark {
+
+    @Param({"2", "40", "400"})
+    public int logs;
+
+    private Element waypoint;
+    private DomGeocacheReader reader;
+    private DecodingContext context;
+
+    @Setup
+    public void loadWaypoint() throws IOException, SAXException, ParserConfigurationException {
+        final File file = BenchmarkFiles.create(1, logs);
+        try {
+            waypoint = (Element) DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file)
+                    .getElementsByTagName("wpt").item(0);
+        } finally {
+            file.delete();
+        }
+        context = new DecodingContext(EnumSet.allOf(GeocacheField.class), LogRetention.all(), new SymbolTable(), null);
+        reader = new DomGeocacheReader(new ByteArrayInputStream("<gpx/>".getBytes()), context);
+    }
+
+    @Benchmark
+    public Geocache siblingWalk() {
+        return reader.getGeocache(waypoint);
+    }
+
+    @Benchmark
+    public Geocache subtreeSearch() {
+        final Element groundspeak = getSubElement(waypoint, "groundspeak:cache");
+        final Geocache.Builder builder = Geocache.builder()
+                .latitude(Double.valueOf(waypoint.getAttribute("lat")))
+                .longitude(Double.valueOf(waypoint.getAttribute("lon")))
+                .hidden(context.timestamp(getSubElementContent(waypoint, "time")))
+                .gcCode(getSubElementContent(waypoint, "name"))
+                .archived(Boolean.valueOf(groundspeak.getAttribute("archived")))
+                .available(Boolean.valueOf(groundspeak.getAttribute("available")))
+                .name(getSubElementContent(groundspeak, "groundspeak:name"))
+                .country(context.symbol(getSubElementContent(groundspeak, "groundspeak:country")))
+                .state(context.symbol(getSubElementContent(groundspeak, "groundspeak:state")))
+                .owner(context.symbol(getSubElementContent(groundspeak, "groundspeak:owner")))
+                .type(CacheType.getByGpxDescription(getSubElementContent(groundspeak, "groundspeak:type")))
+                .size(CacheSize.getByGpxDescription(getSubElementContent(groundspeak, "groundspeak:container")))
+                .difficulty(Float.parseFloat(getSubElementContent(groundspeak, "groundspeak:difficulty")))
+                .terrain(Float.parseFloat(getSubElementContent(groundspeak, "groundspeak:terrain")))
+                .shortDescription(getSubElementContent(groundspeak, "groundspeak:short_description"))
+                .longDescription(getSubElementContent(groundspeak, "groundspeak:long_description"))
+                .hint(getSubElementContent(groundspeak, "groundspeak:encoded_hints"));
+        for (final Element attribute : new IterableSubElements(getSubElement(groundspeak, "groundspeak:attributes"))) {
+            builder.attribute(context.symbol(attribute.getTextContent()), "1".equals(attribute.getAttribute("inc")));
+        }
+        for (final Element log : new IterableSubElements(getSubElement(groundspeak, "groundspeak:logs"))) {
+            builder.addLog(Log.builder()
+                    .id(Long.parseLong(log.getAttribute("id")))
+                    .date(context.timestamp(getSubElementContent(log, "groundspeak:date")))
+                    .type(LogType.getByGpxDescription(getSubElementContent(log, "groundspeak:type")))
+                    .user(context.symbol(getSubElementContent(log, "groundspeak:finder")))
+                    .text(getSubElementContent(log, "groundspeak:text"))
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private static Element getSubElement(final Element parent, final String subElementName) {
+        return (Element) parent.getElementsByTagName(subElementName).item(0);
+    }
+
+    private static String getSubElementContent(final Element parent, final String subElementName) {
+        return getSubElement(parent, subElementName).getTextContent();
+    }
+}
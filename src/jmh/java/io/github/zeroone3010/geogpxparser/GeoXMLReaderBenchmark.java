@@ -0,0 +1,77 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link GeoXMLReader#parse(java.util.function.Consumer)} takes to parse a whole file. Run with
+ * {@code -prof gc} to see the allocation rate as well.
+ * <p>
+ * The largest files take gigabytes of disk, and the DOM engine needs a heap several times the size of the file, so
+ * the parameters can be narrowed down with, for example, {@code -p waypoints=1000 -p engine=STAX}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeoXMLReaderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int waypoints;
+
+    /**
+     * "few" has 2 logs per cache like a typical Pocket Query, "many" has 40 like a My Finds query of old caches.
+     */
+    @Param({"few", "many"})
+    public String logs;
+
+    @Param({"DOM", "STAX", "MAPPED"})
+    public GeoXMLReader.Engine engine;
+
+    private File file;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = BenchmarkFiles.create(waypoints, "many".equals(logs) ? 40 : 2);
+        // The progress messages of the reader would drown the results:
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(final int b) {
+                // Discarded
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        System.setOut(originalOut);
+        file.delete();
+    }
+
+    @Benchmark
+    public void parse(final Blackhole blackhole) {
+        new GeoXMLReader(file.getPath()).engine(engine).parse(blackhole::consume);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the small operations that are repeated for every waypoint and log while parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    private static final String[] TIMESTAMPS = {"2010-07-08T19:00:00Z", "2011-03-12T08:00:00",
+            "2012-10-29T12:34:56.789+02:00", "2013-01-01T00:00:00.5"};
+    private static final String[] CACHE_TYPES = {"Traditional Cache", "Unknown Cache", "Earthcache",
+            "Wherigo Cache"};
+    private static final String[] CACHE_SIZES = {"Micro", "Small", "Regular", "Not chosen"};
+    private static final String[] LOG_TYPES = {"Found it", "Didn't find it", "Write note", "Attended"};
+    private static final String[] SCALARS = {"60.123456", "-24.987654", "1.5", "4", "True", "123456789"};
+
+    private final CharSlice[] scalars = new CharSlice[SCALARS.length];
+
+    @Setup
+    public void createScalars() {
+        for (int i = 0; i < SCALARS.length; i++) {
+            scalars[i] = new CharSlice();
+            scalars[i].append(SCALARS[i].toCharArray(), 0, SCALARS[i].length());
+        }
+    }
+
+    @Benchmark
+    public void timestamps(final Blackhole blackhole) {
+        for (final String timestamp : TIMESTAMPS) {
+            final LocalDateTime parsed = TimestampParser.parse(timestamp);
+            blackhole.consume(parsed);
+        }
+    }
+
+    @Benchmark
+    public void enumLookups(final Blackhole blackhole) {
+        for (int i = 0; i < CACHE_TYPES.length; i++) {
+            blackhole.consume(CacheType.getByGpxDescription(CACHE_TYPES[i]));
+            blackhole.consume(CacheSize.getByGpxDescription(CACHE_SIZES[i]));
+            blackhole.consume(LogType.getByGpxDescription(LOG_TYPES[i]));
+        }
+    }
+
+    /**
+     * Decodes the coordinates, ratings, a flag and a log id of a waypoint from a reused buffer, the same way as the
+     * streaming engine does. With {@code -prof gc} this shows no allocations.
+     */
+    @Benchmark
+    public void scalars(final Blackhole blackhole) {
+        blackhole.consume(ScalarDecoder.parseDouble(scalars[0]));
+        blackhole.consume(ScalarDecoder.parseDouble(scalars[1]));
+        blackhole.consume(ScalarDecoder.parseFloat(scalars[2]));
+        blackhole.consume(ScalarDecoder.parseFloat(scalars[3]));
+        blackhole.consume(ScalarDecoder.parseBoolean(scalars[4]));
+        blackhole.consume(ScalarDecoder.parseLong(scalars[5]));
+    }
+}
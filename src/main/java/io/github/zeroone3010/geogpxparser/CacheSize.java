@@ -1,12 +1,5 @@
 package io.github.zeroone3010.geogpxparser;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static java.util.function.Function.identity;
-
 public enum CacheSize {
 
     Micro("Micro"),
@@ -17,12 +10,8 @@ public enum CacheSize {
     Other("Other"),
     Not_chosen("Not chosen");
     private final String gpxDescription;
-    private static final Map<String, CacheSize> gpxToSize;
-
-    static {
-        gpxToSize = Arrays.asList(CacheSize.values()).stream()
-                .collect(Collectors.toMap(CacheSize::getGpxDescription, identity()));
-    }
+    private static final DescriptionLookup<CacheSize> gpxToSize =
+            new DescriptionLookup<>(values(), CacheSize::getGpxDescription, Not_chosen);
 
     private CacheSize(String gpxDescriptionParam) {
         this.gpxDescription = gpxDescriptionParam;
@@ -32,7 +21,7 @@ public enum CacheSize {
         return this.gpxDescription;
     }
 
-    public static CacheSize getByGpxDescription(String description) {
-        return Optional.ofNullable(gpxToSize.get(description)).orElse(Not_chosen);
+    public static CacheSize getByGpxDescription(final CharSequence description) {
+        return gpxToSize.find(description);
     }
 };
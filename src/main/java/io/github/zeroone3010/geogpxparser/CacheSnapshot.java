@@ -0,0 +1,540 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Saves a list of parsed geocaches into a columnar binary snapshot, and loads it back by memory-mapping the file.
+ * Loading a snapshot takes only as long as mapping the file: each cache is built from the mapped columns the first time
+ * it is accessed, so a dataset that does not change can be used again without parsing any XML.
+ * <p>
+ * The file consists of a header, the columns of the caches, the attributes and the logs, and finally a dictionary
+ * that holds every distinct string once. The string columns refer to the dictionary by index. All the numbers are
+ * big-endian. A file larger than 1 GB is mapped in several segments, so the size of a snapshot is not limited by the
+ * size of a single buffer.
+ * <p>
+ * The header can also name the source that the caches were parsed from, so that a snapshot that no longer matches
+ * its source can be recognized. A snapshot is written into a temporary file that replaces the old one only once it is
+ * complete, and a file whose size does not match its header is rejected when it is read.
+ */
+public final class CacheSnapshot {
+
+    private static final int MAGIC = 0x47475053; // "GGPS"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final byte NULL = -1;
+    private static final byte AVAILABLE = 1;
+    private static final byte ARCHIVED = 2;
+
+    private static final List<Function<Geocache, String>> STRING_COLUMNS = new ArrayList<>();
+
+    static {
+        STRING_COLUMNS.add(Geocache::getGcCode);
+        STRING_COLUMNS.add(Geocache::getName);
+        STRING_COLUMNS.add(Geocache::getOwner);
+        STRING_COLUMNS.add(Geocache::getCountry);
+        STRING_COLUMNS.add(Geocache::getState);
+        STRING_COLUMNS.add(Geocache::getShortDescription);
+        STRING_COLUMNS.add(Geocache::getLongDescription);
+        STRING_COLUMNS.add(cache -> cache.getHint(true));
+    }
+
+    private CacheSnapshot() { /* prevent */}
+
+    /**
+     * Writes the given caches into a snapshot file, replacing the file if it already exists.
+     *
+     * @param caches The caches to save.
+     * @param file   The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(final List<Geocache> caches, final File file) throws IOException {
+        write(caches, file, null);
+    }
+
+    /**
+     * Writes the given caches into a snapshot file, replacing the file if it already exists.
+     *
+     * @param caches The caches to save.
+     * @param file   The snapshot file.
+     * @param source A description of where the caches came from, such as the paths and modification times of the
+     *               parsed files, or null. It can be read back with {@link #readSource(File)}.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(final List<Geocache> caches, final File file, final String source) throws IOException {
+        final Path target = file.getAbsoluteFile().toPath();
+        final Path temporary = Files.createTempFile(target.getParent(), "snapshot", ".tmp");
+        try {
+            writeColumns(caches, temporary, source);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeColumns(final List<Geocache> caches, final Path file, final String source)
+            throws IOException {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> dictionary = new ArrayList<>();
+        final Function<String, Integer> encode = text -> {
+            if (text == null) {
+                return NO_STRING;
+            }
+            return codes.computeIfAbsent(text, newText -> {
+                dictionary.add(newText);
+                return dictionary.size() - 1;
+            });
+        };
+
+        long attributeTotal = 0;
+        long logTotal = 0;
+        for (final Geocache cache : caches) {
+            attributeTotal += cache.getAttributes().size();
+            logTotal += cache.getLogs().size();
+        }
+        if (attributeTotal > Integer.MAX_VALUE || logTotal > Integer.MAX_VALUE) {
+            throw new IOException("There are too many attributes or logs to be saved into a snapshot.");
+        }
+        final int attributeCount = (int) attributeTotal;
+        final int logCount = (int) logTotal;
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(caches.size());
+            out.writeInt(attributeCount);
+            out.writeInt(logCount);
+            out.writeInt(encode.apply(source));
+
+            for (final Geocache cache : caches) {
+                out.writeDouble(cache.getLatitude());
+            }
+            for (final Geocache cache : caches) {
+                out.writeDouble(cache.getLongitude());
+            }
+            for (final Geocache cache : caches) {
+                out.writeFloat(cache.getDifficulty());
+            }
+            for (final Geocache cache : caches) {
+                out.writeFloat(cache.getTerrain());
+            }
+            for (final Geocache cache : caches) {
+                out.writeLong(cache.getHidden() == null ? NO_DATE : cache.getHidden().toEpochSecond(ZoneOffset.UTC));
+            }
+            for (final Geocache cache : caches) {
+                out.writeInt(cache.getHidden() == null ? 0 : cache.getHidden().getNano());
+            }
+            for (final Function<Geocache, String> column : STRING_COLUMNS) {
+                for (final Geocache cache : caches) {
+                    out.writeInt(encode.apply(column.apply(cache)));
+                }
+            }
+            for (final Geocache cache : caches) {
+                out.writeByte(cache.getType() == null ? NULL : cache.getType().ordinal());
+            }
+            for (final Geocache cache : caches) {
+                out.writeByte(cache.getSize() == null ? NULL : cache.getSize().ordinal());
+            }
+            for (final Geocache cache : caches) {
+                out.writeByte((cache.isAvailable() ? AVAILABLE : 0) | (cache.isArchived() ? ARCHIVED : 0));
+            }
+
+            int start = 0;
+            out.writeInt(start);
+            for (final Geocache cache : caches) {
+                start += cache.getAttributes().size();
+                out.writeInt(start);
+            }
+            for (final Geocache cache : caches) {
+                for (final String attribute : cache.getAttributes().keySet()) {
+                    out.writeInt(encode.apply(attribute));
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Boolean value : cache.getAttributes().values()) {
+                    out.writeByte(value == null ? NULL : (value ? 1 : 0));
+                }
+            }
+
+            start = 0;
+            out.writeInt(start);
+            for (final Geocache cache : caches) {
+                start += cache.getLogs().size();
+                out.writeInt(start);
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeLong(log.getId());
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeLong(log.getDate() == null ? NO_DATE : log.getDate().toEpochSecond(ZoneOffset.UTC));
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeInt(log.getDate() == null ? 0 : log.getDate().getNano());
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeInt(encode.apply(log.getUser()));
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeInt(encode.apply(log.getText()));
+                }
+            }
+            for (final Geocache cache : caches) {
+                for (final Log log : cache.getLogs()) {
+                    out.writeByte(log.getType() == null ? NULL : log.getType().ordinal());
+                }
+            }
+
+            final List<byte[]> encoded = new ArrayList<>(dictionary.size());
+            out.writeInt(dictionary.size());
+            long offset = 0;
+            out.writeLong(offset);
+            for (final String text : dictionary) {
+                final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offset += bytes.length;
+                out.writeLong(offset);
+            }
+            for (final byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot file into memory. The returned list reads the caches from the mapped file, so it stays valid
+     * even if the file is deleted, but the file must not be overwritten while the list is in use.
+     *
+     * @param file A file created with {@link #write(List, File)}.
+     * @return The caches of the snapshot, in the order they were written in.
+     * @throws IOException If the file cannot be read, is not a snapshot or is not complete.
+     */
+    public static List<Geocache> read(final File file) throws IOException {
+        return map(file);
+    }
+
+    /**
+     * @param file A file created with {@link #write(List, File, String)}.
+     * @return The description of the source of the caches, or null if the snapshot has none.
+     * @throws IOException If the file cannot be read, is not a snapshot or is not complete.
+     */
+    public static String readSource(final File file) throws IOException {
+        return map(file).getSource();
+    }
+
+    private static SnapshotList map(final File file) throws IOException {
+        final MappedFile buffer;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = MappedFile.map(channel);
+        }
+        if (buffer.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("The file '" + file + "' is not a cache snapshot.");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("The cache snapshot '" + file + "' has an unsupported version "
+                    + buffer.getInt(Integer.BYTES) + ".");
+        }
+        final SnapshotList caches = SnapshotList.of(buffer);
+        if (caches == null) {
+            throw new IOException("The cache snapshot '" + file + "' is incomplete.");
+        }
+        return caches;
+    }
+
+    /**
+     * The caches of a mapped snapshot. Each cache is built when it is first accessed, and kept after that.
+     */
+    private static final class SnapshotList extends AbstractList<Geocache> implements RandomAccess {
+        private final MappedFile buffer;
+        private final Geocache[] caches;
+        private final String[] strings;
+        // Gives the codes of the log finders, shared by all the caches of the snapshot:
+        private final SymbolTable symbols = new SymbolTable();
+
+        private final long latitudes;
+        private final long longitudes;
+        private final long difficulties;
+        private final long terrains;
+        private final long hiddenSeconds;
+        private final long hiddenNanos;
+        private final long stringColumns;
+        private final long types;
+        private final long sizes;
+        private final long flags;
+        private final long attributeStarts;
+        private final long attributeNames;
+        private final long attributeValues;
+        private final long logStarts;
+        private final long logIds;
+        private final long logSeconds;
+        private final long logNanos;
+        private final long logUsers;
+        private final long logTexts;
+        private final long logTypes;
+        private final long dictionaryOffsets;
+        private final long dictionaryBytes;
+
+        /**
+         * @return The caches of the buffer, or null if the size of the buffer does not match the counts in its
+         * header.
+         */
+        static SnapshotList of(final MappedFile buffer) {
+            final int count = buffer.getInt(2 * Integer.BYTES);
+            final int attributeCount = buffer.getInt(3 * Integer.BYTES);
+            final int logCount = buffer.getInt(4 * Integer.BYTES);
+            if (count < 0 || attributeCount < 0 || logCount < 0) {
+                return null;
+            }
+            // The size of everything up to the dictionary, in the order of the constructor:
+            final long dictionary = HEADER_SIZE
+                    + (2L * Double.BYTES + 2L * Float.BYTES + Long.BYTES + Integer.BYTES) * count
+                    + (long) STRING_COLUMNS.size() * Integer.BYTES * count
+                    + 3L * count
+                    + Integer.BYTES * (count + 1L) + (Integer.BYTES + 1L) * attributeCount
+                    + Integer.BYTES * (count + 1L) + (2L * Long.BYTES + 3L * Integer.BYTES + 1L) * logCount;
+            if (dictionary + Integer.BYTES > buffer.size()) {
+                return null;
+            }
+            final int strings = buffer.getInt(dictionary);
+            final long dictionaryBytes = dictionary + Integer.BYTES + Long.BYTES * (strings + 1L);
+            if (strings < 0 || dictionaryBytes > buffer.size()
+                    || dictionaryBytes + buffer.getLong(dictionaryBytes - Long.BYTES) != buffer.size()) {
+                return null;
+            }
+            return new SnapshotList(buffer, count, attributeCount, logCount);
+        }
+
+        private SnapshotList(final MappedFile buffer, final int count, final int attributeCount, final int logCount) {
+            this.buffer = buffer;
+            this.caches = new Geocache[count];
+
+            latitudes = HEADER_SIZE;
+            longitudes = latitudes + (long) Double.BYTES * count;
+            difficulties = longitudes + (long) Double.BYTES * count;
+            terrains = difficulties + (long) Float.BYTES * count;
+            hiddenSeconds = terrains + (long) Float.BYTES * count;
+            hiddenNanos = hiddenSeconds + (long) Long.BYTES * count;
+            stringColumns = hiddenNanos + (long) Integer.BYTES * count;
+            types = stringColumns + (long) STRING_COLUMNS.size() * Integer.BYTES * count;
+            sizes = types + count;
+            flags = sizes + count;
+            attributeStarts = flags + count;
+            attributeNames = attributeStarts + Integer.BYTES * (count + 1L);
+            attributeValues = attributeNames + (long) Integer.BYTES * attributeCount;
+            logStarts = attributeValues + attributeCount;
+            logIds = logStarts + Integer.BYTES * (count + 1L);
+            logSeconds = logIds + (long) Long.BYTES * logCount;
+            logNanos = logSeconds + (long) Long.BYTES * logCount;
+            logUsers = logNanos + (long) Integer.BYTES * logCount;
+            logTexts = logUsers + (long) Integer.BYTES * logCount;
+            logTypes = logTexts + (long) Integer.BYTES * logCount;
+            final long dictionary = logTypes + logCount;
+            this.strings = new String[buffer.getInt(dictionary)];
+            dictionaryOffsets = dictionary + Integer.BYTES;
+            dictionaryBytes = dictionaryOffsets + Long.BYTES * (strings.length + 1L);
+        }
+
+        String getSource() {
+            return string(buffer.getInt(5 * Integer.BYTES));
+        }
+
+        @Override
+        public int size() {
+            return caches.length;
+        }
+
+        @Override
+        public Geocache get(final int index) {
+            Geocache cache = caches[index];
+            if (cache == null) {
+                cache = build(index);
+                caches[index] = cache;
+            }
+            return cache;
+        }
+
+        private Geocache build(final int index) {
+            final byte flag = buffer.get(flags + index);
+            final Geocache.Builder builder = Geocache.builder().symbols(symbols)
+                    .latitude(buffer.getDouble(latitudes + (long) Double.BYTES * index))
+                    .longitude(buffer.getDouble(longitudes + (long) Double.BYTES * index))
+                    .difficulty(buffer.getFloat(difficulties + (long) Float.BYTES * index))
+                    .terrain(buffer.getFloat(terrains + (long) Float.BYTES * index))
+                    .hidden(date(buffer.getLong(hiddenSeconds + (long) Long.BYTES * index),
+                            buffer.getInt(hiddenNanos + (long) Integer.BYTES * index)))
+                    .gcCode(string(index, 0))
+                    .name(string(index, 1))
+                    .owner(string(index, 2))
+                    .country(string(index, 3))
+                    .state(string(index, 4))
+                    .shortDescription(string(index, 5))
+                    .longDescription(string(index, 6))
+                    .hint(string(index, 7))
+                    .type(value(CacheType.values(), buffer.get(types + index)))
+                    .size(value(CacheSize.values(), buffer.get(sizes + index)))
+                    .available((flag & AVAILABLE) != 0)
+                    .archived((flag & ARCHIVED) != 0);
+
+            final int attributesEnd = buffer.getInt(attributeStarts + Integer.BYTES * (index + 1L));
+            for (int i = buffer.getInt(attributeStarts + (long) Integer.BYTES * index); i < attributesEnd; i++) {
+                final byte value = buffer.get(attributeValues + i);
+                builder.attribute(string(buffer.getInt(attributeNames + (long) Integer.BYTES * i)),
+                        value == NULL ? null : value == 1);
+            }
+
+            final int logsEnd = buffer.getInt(logStarts + Integer.BYTES * (index + 1L));
+            for (int i = buffer.getInt(logStarts + (long) Integer.BYTES * index); i < logsEnd; i++) {
+                builder.addLog(Log.builder()
+                        .id(buffer.getLong(logIds + (long) Long.BYTES * i))
+                        .date(date(buffer.getLong(logSeconds + (long) Long.BYTES * i), buffer.getInt(logNanos + (long) Integer.BYTES * i)))
+                        .user(string(buffer.getInt(logUsers + (long) Integer.BYTES * i)))
+                        .text(string(buffer.getInt(logTexts + (long) Integer.BYTES * i)))
+                        .type(value(LogType.values(), buffer.get(logTypes + i)))
+                        .build());
+            }
+            return builder.build();
+        }
+
+        private String string(final int index, final int column) {
+            return string(buffer.getInt(stringColumns + Integer.BYTES * ((long) column * caches.length + index)));
+        }
+
+        /**
+         * Decodes a string of the dictionary. Each string is decoded only once, so the caches share the strings that
+         * repeat from one cache to another.
+         */
+        private String string(final int code) {
+            if (code == NO_STRING) {
+                return null;
+            }
+            String text = strings[code];
+            if (text == null) {
+                final long start = buffer.getLong(dictionaryOffsets + (long) Long.BYTES * code);
+                final long end = buffer.getLong(dictionaryOffsets + Long.BYTES * (code + 1L));
+                final byte[] bytes = new byte[(int) (end - start)];
+                buffer.get(dictionaryBytes + start, bytes);
+                text = new String(bytes, StandardCharsets.UTF_8);
+                strings[code] = text;
+            }
+            return text;
+        }
+
+        private static LocalDateTime date(final long seconds, final int nanos) {
+            return seconds == NO_DATE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+
+        private static <E extends Enum<E>> E value(final E[] values, final byte ordinal) {
+            return ordinal == NULL ? null : values[ordinal];
+        }
+    }
+
+    /**
+     * A file mapped into memory in segments of 1 GB, addressed as one contiguous sequence of bytes. Each segment
+     * overlaps the next one by the size of a long, so that every number lies completely within the segment that it
+     * starts in.
+     */
+    private static final class MappedFile {
+        private static final int SEGMENT_SHIFT = 30;
+        private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+        private final ByteBuffer[] segments;
+        private final long size;
+
+        private MappedFile(final ByteBuffer[] segments, final long size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        static MappedFile map(final FileChannel channel) throws IOException {
+            final long size = channel.size();
+            final ByteBuffer[] segments = new ByteBuffer[(int) Math.max((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT, 1)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min((long) SEGMENT_SIZE + Long.BYTES, size - position));
+            }
+            return new MappedFile(segments, size);
+        }
+
+        long size() {
+            return size;
+        }
+
+        private ByteBuffer segment(final long position) {
+            return segments[(int) (position >>> SEGMENT_SHIFT)];
+        }
+
+        private static int offset(final long position) {
+            return (int) (position & (SEGMENT_SIZE - 1));
+        }
+
+        byte get(final long position) {
+            return segment(position).get(offset(position));
+        }
+
+        int getInt(final long position) {
+            return segment(position).getInt(offset(position));
+        }
+
+        long getLong(final long position) {
+            return segment(position).getLong(offset(position));
+        }
+
+        float getFloat(final long position) {
+            return segment(position).getFloat(offset(position));
+        }
+
+        double getDouble(final long position) {
+            return segment(position).getDouble(offset(position));
+        }
+
+        /**
+         * Copies bytes starting from the given position, continuing into the next segments as needed.
+         */
+        void get(final long position, final byte[] bytes) {
+            int copied = 0;
+            while (copied < bytes.length) {
+                final long current = position + copied;
+                final ByteBuffer view = segment(current).duplicate();
+                view.position(offset(current));
+                final int count = Math.min(bytes.length - copied, SEGMENT_SIZE - offset(current));
+                view.get(bytes, copied, count);
+                copied += count;
+            }
+        }
+    }
+}
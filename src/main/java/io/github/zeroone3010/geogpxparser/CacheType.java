@@ -1,12 +1,5 @@
 package io.github.zeroone3010.geogpxparser;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static java.util.function.Function.identity;
-
 public enum CacheType {
 
     Traditional("Traditional Cache"),
@@ -22,12 +15,8 @@ public enum CacheType {
     CITO("Cache In Trash Out Event"),
     Other(null);
     private final String gpxDescription;
-    private static final Map<String, CacheType> gpxToType;
-
-    static {
-        gpxToType = Arrays.asList(CacheType.values()).stream()
-                .collect(Collectors.toMap(CacheType::getGpxDescription, identity()));
-    }
+    private static final DescriptionLookup<CacheType> gpxToType =
+            new DescriptionLookup<>(values(), CacheType::getGpxDescription, Other);
 
     private CacheType(String gpxDescriptionParam) {
         this.gpxDescription = gpxDescriptionParam;
@@ -37,7 +26,7 @@ public enum CacheType {
         return this.gpxDescription;
     }
 
-    public static CacheType getByGpxDescription(String description) {
-        return Optional.ofNullable(gpxToType.get(description)).orElse(Other);
+    public static CacheType getByGpxDescription(final CharSequence description) {
+        return gpxToType.find(description);
     }
 };
@@ -0,0 +1,50 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of characters that can be read as a {@link CharSequence}. The streaming reader collects short
+ * values into it, so that they can be decoded without creating a string for each of them.
+ * <p>
+ * The contents change whenever the buffer is reused, so the sequence must not be kept after it has been decoded.
+ */
+final class CharSlice implements CharSequence {
+
+    private char[] chars = new char[64];
+    private int length = 0;
+
+    void clear() {
+        length = 0;
+    }
+
+    void append(final char[] source, final int start, final int count) {
+        if (length + count > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+        }
+        System.arraycopy(source, start, chars, length, count);
+        length += count;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not less than " + length + ".");
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
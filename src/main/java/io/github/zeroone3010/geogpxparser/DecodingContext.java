@@ -0,0 +1,112 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The settings that the engines need for decoding the waypoints of a file, and the counters of what has been decoded
+ * from the file.
+ */
+final class DecodingContext {
+
+    private final Set<GeocacheField> fields;
+    private final LogRetention logRetention;
+    private final SymbolTable symbols;
+    private final TextArena textArena;
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failedTimestamps = new LongAdder();
+    private volatile boolean fromParseCache = false;
+
+    /**
+     * @param textArena The arena for the long texts, or null to keep them in the heap.
+     */
+    DecodingContext(final Set<GeocacheField> fields, final LogRetention logRetention, final SymbolTable symbols,
+                    final TextArena textArena) {
+        this.fields = EnumSet.noneOf(GeocacheField.class);
+        this.fields.addAll(fields);
+        this.logRetention = logRetention;
+        this.symbols = symbols;
+        this.textArena = textArena;
+    }
+
+    /**
+     * @return A context with the same settings, shared strings and text arena, but with counters of its own.
+     */
+    DecodingContext forFile() {
+        return new DecodingContext(fields, logRetention, symbols, textArena);
+    }
+
+    boolean wants(final GeocacheField field) {
+        return fields.contains(field);
+    }
+
+    LogRetention getLogRetention() {
+        return logRetention;
+    }
+
+    /**
+     * Returns the shared instance of a string that is likely to repeat from one cache to another.
+     *
+     * @see SymbolTable#intern(String)
+     */
+    String symbol(final String value) {
+        return symbols.intern(value);
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Parses a timestamp, counting the ones that cannot be parsed.
+     *
+     * @see TimestampParser#parse(CharSequence)
+     */
+    LocalDateTime timestamp(final CharSequence text) {
+        final LocalDateTime result = TimestampParser.parse(text);
+        if (result == null && text.length() > 0) {
+            failedTimestamps.increment();
+        }
+        return result;
+    }
+
+    long getFailedTimestamps() {
+        return failedTimestamps.sum();
+    }
+
+    void countBytes(final long count) {
+        bytes.add(count);
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Records that the caches were read from a {@link ParseCache} instead of being decoded from XML.
+     */
+    void markFromParseCache() {
+        fromParseCache = true;
+    }
+
+    boolean isFromParseCache() {
+        return fromParseCache;
+    }
+
+    /**
+     * @return The arena for the descriptions, hints and log texts, or null if they are kept in the heap.
+     */
+    TextArena getTextArena() {
+        return textArena;
+    }
+
+    /**
+     * @return A description of the settings that affect the decoded caches, for telling apart caches that have been
+     * decoded with different settings.
+     */
+    String describeSettings() {
+        return "fields=" + fields + ", logs=" + logRetention;
+    }
+}
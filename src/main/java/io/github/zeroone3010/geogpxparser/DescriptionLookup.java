@@ -0,0 +1,102 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Finds the enum value that has the given .gpx description, without creating a string of the description first.
+ * <p>
+ * The descriptions are placed in a perfect hash table: the multiplier of the hash function is chosen so that no two
+ * descriptions end up in the same slot, so a lookup hashes the text once and compares it to a single candidate.
+ */
+final class DescriptionLookup<E extends Enum<E>> {
+
+    /**
+     * The number of multipliers tried for each table size before doubling the size.
+     */
+    private static final int MULTIPLIERS_TRIED = 512;
+
+    private final char[][] keys;
+    private final E[] values;
+    private final E fallback;
+    private final int mask;
+    private final int multiplier;
+
+    /**
+     * @param all         All the values of the enum.
+     * @param description The function that returns the description of a value, or null if the value has none.
+     * @param fallback    The value returned for unknown descriptions.
+     */
+    DescriptionLookup(final E[] all, final Function<E, String> description, final E fallback) {
+        int size = Integer.highestOneBit(all.length) << 1;
+        int candidate = 31;
+        E[] table = Arrays.copyOf(all, size);
+        while (!fill(table, all, description, candidate)) {
+            candidate += 2;
+            if (candidate >= 31 + 2 * MULTIPLIERS_TRIED) {
+                candidate = 31;
+                size <<= 1;
+                table = Arrays.copyOf(all, size);
+            }
+        }
+        this.values = table;
+        this.keys = new char[size][];
+        for (int i = 0; i < size; i++) {
+            keys[i] = table[i] == null ? null : description.apply(table[i]).toCharArray();
+        }
+        this.fallback = fallback;
+        this.mask = size - 1;
+        this.multiplier = candidate;
+    }
+
+    /**
+     * Places the values with a description into the given table, which has a size that is a power of two.
+     *
+     * @return False if two of the descriptions ended up in the same slot.
+     */
+    private static <E> boolean fill(final E[] table, final E[] all, final Function<E, String> description,
+                                    final int multiplier) {
+        Arrays.fill(table, null);
+        for (final E value : all) {
+            final String text = description.apply(value);
+            if (text == null) {
+                continue;
+            }
+            final int slot = hash(text, multiplier) & (table.length - 1);
+            if (table[slot] != null) {
+                return false;
+            }
+            table[slot] = value;
+        }
+        return true;
+    }
+
+    /**
+     * @param text The description, or null.
+     * @return The value with the given description, or the fallback value if there is no such value.
+     */
+    E find(final CharSequence text) {
+        if (text == null) {
+            return fallback;
+        }
+        final int slot = hash(text, multiplier) & mask;
+        final char[] key = keys[slot];
+        if (key == null || key.length != text.length()) {
+            return fallback;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != text.charAt(i)) {
+                return fallback;
+            }
+        }
+        return values[slot];
+    }
+
+    private static int hash(final CharSequence text, final int multiplier) {
+        int hash = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            hash = hash * multiplier + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
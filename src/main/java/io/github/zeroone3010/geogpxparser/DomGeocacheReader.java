@@ -0,0 +1,223 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Reads geocaches from a Groundspeak .gpx file by first loading the whole file into a DOM tree.
+ *
+ * @see GeoXMLReader.Engine#DOM
+ */
+final class DomGeocacheReader implements GeocacheSource {
+
+    private final NodeList caches;
+    private final DecodingContext context;
+    private int index = 0;
+
+    DomGeocacheReader(final InputStream input, final DecodingContext context)
+            throws IOException, SAXException, ParserConfigurationException {
+        this.context = context;
+        try {
+            final Document dom = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(input);
+            this.caches = dom.getDocumentElement().getElementsByTagName("wpt");
+        } finally {
+            input.close();
+        }
+    }
+
+    @Override
+    public Geocache next() {
+        while (index < caches.getLength()) {
+            final Geocache cache = getGeocache((Element) caches.item(index++));
+            if (cache != null) {
+                return cache;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The geocache of the given waypoint, or null if the waypoint is not a geocache but, for example, an
+     * additional waypoint from a Pocket Query's -wpts.gpx file.
+     */
+    Geocache getGeocache(final Element wptElement) {
+        // Each element is visited only once: the children of the waypoint here, and the children of the cache and
+        // of each log in the methods below. Searching the subtree for each field separately would walk through all
+        // of the logs for the fields that come after them.
+        Element groundspeak = null;
+        Element time = null;
+        Element name = null;
+        for (final Element child : new IterableSubElements(wptElement)) {
+            switch (child.getTagName()) {
+                case "groundspeak:cache":
+                    groundspeak = child;
+                    break;
+                case "time":
+                    time = child;
+                    break;
+                case "name":
+                    name = child;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (groundspeak == null) {
+            return null;
+        }
+        final Geocache.Builder builder = Geocache.builder().textArena(context.getTextArena()).symbols(context.getSymbols());
+
+        if (context.wants(GeocacheField.COORDINATES)) {
+            builder.latitude(ScalarDecoder.parseDouble(wptElement.getAttribute("lat")))
+                    .longitude(ScalarDecoder.parseDouble(wptElement.getAttribute("lon")));
+        }
+        if (context.wants(GeocacheField.HIDDEN) && time != null) {
+            builder.hidden(context.timestamp(time.getTextContent()));
+        }
+        if (context.wants(GeocacheField.GC_CODE) && name != null) {
+            builder.gcCode(name.getTextContent());
+        }
+        if (context.wants(GeocacheField.STATUS)) {
+            builder.archived(ScalarDecoder.parseBoolean(groundspeak.getAttribute("archived")))
+                    .available(ScalarDecoder.parseBoolean(groundspeak.getAttribute("available")));
+        }
+        for (final Element field : new IterableSubElements(groundspeak)) {
+            readField(builder, field);
+        }
+        return builder.build();
+    }
+
+    private void readField(final Geocache.Builder builder, final Element field) {
+        switch (field.getTagName()) {
+            case "groundspeak:name":
+                if (context.wants(GeocacheField.NAME)) {
+                    builder.name(field.getTextContent());
+                }
+                break;
+            case "groundspeak:country":
+                if (context.wants(GeocacheField.COUNTRY)) {
+                    builder.country(context.symbol(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:state":
+                if (context.wants(GeocacheField.STATE)) {
+                    builder.state(context.symbol(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:owner":
+                if (context.wants(GeocacheField.OWNER)) {
+                    builder.owner(context.symbol(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:type":
+                if (context.wants(GeocacheField.TYPE)) {
+                    builder.type(CacheType.getByGpxDescription(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:container":
+                if (context.wants(GeocacheField.SIZE)) {
+                    builder.size(CacheSize.getByGpxDescription(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:difficulty":
+                if (context.wants(GeocacheField.DIFFICULTY)) {
+                    builder.difficulty(ScalarDecoder.parseFloat(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:terrain":
+                if (context.wants(GeocacheField.TERRAIN)) {
+                    builder.terrain(ScalarDecoder.parseFloat(field.getTextContent()));
+                }
+                break;
+            case "groundspeak:short_description":
+                if (context.wants(GeocacheField.SHORT_DESCRIPTION)) {
+                    builder.shortDescription(field.getTextContent());
+                }
+                break;
+            case "groundspeak:long_description":
+                if (context.wants(GeocacheField.LONG_DESCRIPTION)) {
+                    builder.longDescription(field.getTextContent());
+                }
+                break;
+            case "groundspeak:encoded_hints":
+                if (context.wants(GeocacheField.HINT)) {
+                    builder.hint(field.getTextContent());
+                }
+                break;
+            case "groundspeak:attributes":
+                // Parse the attributes into a map where key is the attribute name and
+                // value is the value of that attribute:
+                if (context.wants(GeocacheField.ATTRIBUTES)) {
+                    for (final Element attributeElement : new IterableSubElements(field)) {
+                        builder.attribute(context.symbol(attributeElement.getTextContent()), "1".equals(attributeElement.getAttribute("inc")));
+                    }
+                }
+                break;
+            case "groundspeak:logs":
+                if (context.wants(GeocacheField.LOGS)) {
+                    readLogs(builder, field);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void readLogs(final Geocache.Builder builder, final Element logsElement) {
+        final boolean withTexts = context.wants(GeocacheField.LOG_TEXTS);
+        final LogRetention retention = context.getLogRetention();
+        int kept = 0;
+        for (final Element logElement : new IterableSubElements(logsElement)) {
+            if (kept >= retention.getLimit()) {
+                break;
+            }
+            LocalDateTime date = null;
+            LogType type = null;
+            String finder = null;
+            Element text = null;
+            for (final Element field : new IterableSubElements(logElement)) {
+                switch (field.getTagName()) {
+                    case "groundspeak:date":
+                        date = context.timestamp(field.getTextContent());
+                        break;
+                    case "groundspeak:type":
+                        type = LogType.getByGpxDescription(field.getTextContent());
+                        break;
+                    case "groundspeak:finder":
+                        finder = field.getTextContent();
+                        break;
+                    case "groundspeak:text":
+                        text = field;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (!retention.accepts(type, finder, date)) {
+                continue;
+            }
+            final Log log = Log.builder().textArena(context.getTextArena())
+                    .id(ScalarDecoder.parseLong(logElement.getAttribute("id")))
+                    .date(date)
+                    .type(type)
+                    .user(context.symbol(finder))
+                    .text(withTexts && text != null ? text.getTextContent() : null)
+                    .build();
+            builder.addLog(log);
+            kept++;
+        }
+    }
+
+    @Override
+    public void close() {
+        // The file has already been read completely and closed.
+    }
+}
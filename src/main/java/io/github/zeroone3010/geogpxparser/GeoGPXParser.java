@@ -1,8 +1,12 @@
 package io.github.zeroone3010.geogpxparser;
 
 import io.github.zeroone3010.geogpxparser.cachelistparsers.CacheListParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.CacheStatsEngine;
 import io.github.zeroone3010.geogpxparser.cachelistparsers.CountryStatsParser;
 import io.github.zeroone3010.geogpxparser.cachelistparsers.DateStatsParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.DifficultyTerrainGridParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.FindCalendarParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.JasmerChallengeParser;
 import io.github.zeroone3010.geogpxparser.cachelistparsers.OwnerStatsParser;
 import io.github.zeroone3010.geogpxparser.cachelistparsers.StarChallengeParser;
 import io.github.zeroone3010.geogpxparser.comparison.GeoGPXComparer;
@@ -13,14 +17,16 @@ import io.github.zeroone3010.geogpxparser.outputformatters.AbstractTabularDataFo
 import io.github.zeroone3010.geogpxparser.outputformatters.FormatterFactory;
 import io.github.zeroone3010.geogpxparser.tabular.TableData;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Set;
 
 /**
  * This class can be used to parse geocaches from a Groundspeak .gpx file into plain old Java objects (POJO). The cache
@@ -30,6 +36,24 @@ import java.util.stream.Stream;
  */
 public final class GeoGPXParser {
 
+    /**
+     * The parts of the caches that the basic tables are made of. The rest are not read at all.
+     */
+    private static final Set<GeocacheField> BASIC_TABLE_FIELDS = EnumSet.of(GeocacheField.GC_CODE,
+            GeocacheField.NAME, GeocacheField.COORDINATES, GeocacheField.HIDDEN, GeocacheField.TYPE,
+            GeocacheField.SIZE, GeocacheField.DIFFICULTY, GeocacheField.TERRAIN, GeocacheField.OWNER,
+            GeocacheField.COUNTRY, GeocacheField.LOGS);
+
+    /**
+     * The directory where the caches of each parsed file are stored for the next run.
+     */
+    private static final File PARSE_CACHE_DIRECTORY = new File(".geogpxparser-cache");
+
+    /**
+     * The file that the measurements of the parsing are written in with -Dmetrics=true.
+     */
+    private static final String METRICS_FILE = "parse-metrics.json";
+
     public static void main(final String[] args) throws IOException {
         if (args == null) {
             showInstructions();
@@ -43,17 +67,22 @@ public final class GeoGPXParser {
     }
 
     private static void createBasicTables(final String file) throws IOException {
-        final GeoXMLReader reader = new GeoXMLReader(file);
-        final List<Geocache> caches = reader.parse();
-        final TableData tabularRepresentation = new CacheListParser(buildCoordinateFormatter()).getTabularInfo(caches);
-        final TableData ownerStats = new OwnerStatsParser().getTabularInfo(caches);
-        final TableData countryStats = new CountryStatsParser().getTabularInfo(caches);
-        final TableData starStats = new StarChallengeParser().getTabularInfo(caches);
-        final TableData dateStats = new DateStatsParser().getTabularInfo(caches);
+        final List<Geocache> caches = updateStatsState(readCaches(file));
+        final List<TableData> tables = new CacheStatsEngine(
+                new CacheListParser(buildCoordinateFormatter()),
+                new OwnerStatsParser(),
+                new CountryStatsParser(),
+                new StarChallengeParser(),
+                new DateStatsParser(),
+                new DifficultyTerrainGridParser(),
+                new JasmerChallengeParser(),
+                new FindCalendarParser())
+                .parallel(Boolean.parseBoolean(System.getProperty("parallelStats", "false")))
+                .getTabularInfo(caches);
 
         final String outputType = System.getProperty("output", "html").toLowerCase();
 
-        Stream.of(tabularRepresentation, ownerStats, countryStats, starStats, dateStats)
+        tables.stream()
                 .map(td -> FormatterFactory.createFormatter(td, outputType))
                 .forEach(GeoGPXParser::writeDataToFile);
 
@@ -62,6 +91,73 @@ public final class GeoGPXParser {
         info("Done!");
     }
 
+    /**
+     * Parses the caches of the given file, or loads them from the snapshot given with -Dsnapshot if it was made of
+     * the same files, unchanged. A snapshot that does not exist yet, or that is out of date, is created out of the
+     * parsed caches.
+     */
+    private static List<Geocache> readCaches(final String file) throws IOException {
+        final String snapshotPath = System.getProperty("snapshot");
+        final File snapshot = snapshotPath == null ? null : new File(snapshotPath);
+        final String source = snapshot == null ? null : describeSource(file);
+        if (snapshot != null && snapshot.isFile()) {
+            try {
+                if (source.equals(CacheSnapshot.readSource(snapshot))) {
+                    info("Loading the caches from snapshot " + snapshot + "...");
+                    return CacheSnapshot.read(snapshot);
+                }
+                info("Snapshot " + snapshot + " was made of other or changed files, so it is created again.");
+            } catch (IOException ex) {
+                System.err.println("Could not read snapshot '" + snapshot + "', so it is created again!");
+                ex.printStackTrace();
+            }
+        }
+
+        // The tables only look at the first find of each cache:
+        final GeoXMLReader reader = buildReader(file).fields(BASIC_TABLE_FIELDS).logRetention(LogRetention.firstFind());
+        final List<Geocache> caches = reader.parse();
+        if (Boolean.getBoolean("metrics")) {
+            info("Writing " + METRICS_FILE + "...");
+            reader.getMetrics().writeJson(new File(METRICS_FILE));
+        }
+        if (snapshot != null) {
+            info("Saving the caches into snapshot " + snapshot + "...");
+            CacheSnapshot.write(caches, snapshot, source);
+        }
+        return caches;
+    }
+
+    /**
+     * @return The paths, sizes and modification times of the documents in the given path, one per line.
+     */
+    private static String describeSource(final String file) {
+        final StringBuilder source = new StringBuilder();
+        for (final GpxInput input : GpxInput.list(file)) {
+            source.append(input.getId()).append(' ').append(input.getFile().length()).append(' ')
+                    .append(input.getFile().lastModified()).append('\n');
+        }
+        return source.toString();
+    }
+
+    /**
+     * Adds the given caches to the statistics state given with -Dstats, and returns all the caches of the state. Without
+     * the setting, the given caches are returned as they are.
+     */
+    private static List<Geocache> updateStatsState(final List<Geocache> caches) throws IOException {
+        final String statsPath = System.getProperty("stats");
+        if (statsPath == null) {
+            return caches;
+        }
+        final File file = new File(statsPath);
+        final StatsState state = StatsState.load(file);
+        final int before = state.size();
+        state.update(caches);
+        info("Added " + (state.size() - before) + " new caches to statistics state " + file + ", which now has "
+                + state.size() + " caches.");
+        state.save(file);
+        return state.getCaches();
+    }
+
     private static void createComparisonTable(final String file1, final String file2) {
         final GeoGPXComparer comparer = new GeoGPXComparer(file1, file2);
         final TableData compare = comparer.compare();
@@ -73,13 +169,49 @@ public final class GeoGPXParser {
 
     private static void showInstructions() {
         System.out.println("Usage:");
-        System.out.println("1) java [-DcoordinateFormat=(dd|ddmm)] [-Doutput=(xml|html|txt)] -jar GeoGPXParser.jar caches.gpx");
-        System.out.println("2) java [-DcoordinateFormat=(dd|ddmm)] [-Doutput=(xml|html|txt)] -jar GeoGPXParser.jar some/directory/with/gpx/files");
+        System.out.println("1) java [-DcoordinateFormat=(dd|ddmm)] [-Doutput=(xml|html|txt)] [-Dengine=(dom|stax|mapped)] [-Dpipeline=true] [-Dmetrics=true] [-DparseCache=(off|on|checksum|clear)] [-Dsnapshot=caches.snapshot] [-Dstats=stats.state] [-DparallelStats=true] -jar GeoGPXParser.jar caches.(gpx|gpx.gz|zip)");
+        System.out.println("2) java [-DcoordinateFormat=(dd|ddmm)] [-Doutput=(xml|html|txt)] [-Dengine=(dom|stax|mapped)] [-Dthreads=n] [-Dpipeline=true] [-Dmetrics=true] [-DparseCache=(off|on|checksum|clear)] [-Dsnapshot=caches.snapshot] [-Dstats=stats.state] [-DparallelStats=true] -jar GeoGPXParser.jar some/directory/with/gpx/gz/or/zip/files");
         System.out.println("3) java -jar GeoGPXParser.jar cachesOfUser1.gpx cachesOfUser2.gpx");
         System.out.println("...where \"[...]\" denotes an optional parameter and \"(A|B|C)\" denotes alternatives: either A or B or C.");
         System.exit(1);
     }
 
+    private static GeoXMLReader buildReader(final String file) {
+        final GeoXMLReader.Engine engine;
+        final String engineName = System.getProperty("engine", "dom").toLowerCase();
+        switch (engineName) {
+            case "stax":
+                engine = GeoXMLReader.Engine.STAX;
+                break;
+            case "mapped":
+                engine = GeoXMLReader.Engine.MAPPED;
+                break;
+            default:
+                engine = GeoXMLReader.Engine.DOM;
+                break;
+        }
+        final int threads = Integer.getInteger("threads", 1);
+        final boolean pipelined = Boolean.getBoolean("pipeline");
+        return new GeoXMLReader(file).engine(engine).threads(threads).pipelined(pipelined)
+                .parseCache(buildParseCache());
+    }
+
+    private static ParseCache buildParseCache() {
+        final String mode = System.getProperty("parseCache", "off").toLowerCase();
+        final ParseCache parseCache = new ParseCache(PARSE_CACHE_DIRECTORY);
+        switch (mode) {
+            case "on":
+                return parseCache;
+            case "clear":
+                parseCache.clear();
+                return null;
+            case "checksum":
+                return parseCache.checksums(true);
+            default:
+                return null;
+        }
+    }
+
     private static CoordinateFormatter buildCoordinateFormatter() {
         final CoordinateFormatter coordinateFormatter;
         final String coordinateFormat = System.getProperty("coordinateFormat", "ddmm").toLowerCase();
@@ -1,150 +1,557 @@
 package io.github.zeroone3010.geogpxparser;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
+import javax.xml.stream.XMLStreamException;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeParseException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class GeoXMLReader {
 
+    /**
+     * The XML parsing technique used for reading the .gpx files.
+     */
+    public enum Engine {
+        /**
+         * Loads each file completely into a DOM tree before creating the geocaches.
+         */
+        DOM,
+        /**
+         * Streams through each file and creates the geocaches one waypoint at a time, keeping the heap usage flat
+         * regardless of the file size.
+         */
+        STAX,
+        /**
+         * Memory-maps each file, splits it at the waypoint boundaries, and decodes the waypoints in parallel in the
+         * common fork-join pool. Whether this is faster than {@link #STAX} depends on the number of cores and on the
+         * size of the file, so measure both with the benchmarks before choosing it.
+         */
+        MAPPED
+    }
+
+    /**
+     * Where the descriptions, hints and log texts of the caches are kept. These make up most of the memory that a
+     * list of caches takes, even though most uses of the caches never read them.
+     */
+    public enum TextStorage {
+        /**
+         * Keeps the texts as strings in the heap.
+         */
+        HEAP,
+        /**
+         * Keeps the texts outside of the heap and decodes them each time they are read. This keeps the heap and the
+         * garbage collection pauses small with large numbers of caches.
+         */
+        OFF_HEAP,
+        /**
+         * Like {@link #OFF_HEAP}, but also deflates the longer texts, which saves more memory at the cost of slower
+         * reading.
+         */
+        OFF_HEAP_COMPRESSED
+    }
+
+    /**
+     * The number of decoded caches of a file that can wait for the consumer in the pipelined mode.
+     */
+    private static final int PIPELINE_QUEUE_SIZE = 256;
+
+    /**
+     * Marks the end of the caches of a file in the queues of the pipelined mode.
+     */
+    private static final Geocache END_OF_FILE = Geocache.builder().build();
+
     private String file = null;
+    private Engine engine = Engine.DOM;
+    private int threads = 1;
+    private Set<GeocacheField> fields = EnumSet.allOf(GeocacheField.class);
+    private LogRetention logRetention = LogRetention.all();
+    private ParseCache parseCache = null;
+    private boolean pipelined = false;
+    private TextStorage textStorage = TextStorage.HEAP;
+    private volatile ParseMetrics metrics = null;
 
     public GeoXMLReader(final String path) {
         this.file = path;
     }
 
+    /**
+     * Sets the XML parsing engine. The default is {@link Engine#DOM}.
+     *
+     * @param engine The engine to use.
+     * @return This reader.
+     */
+    public GeoXMLReader engine(final Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads used when parsing a directory of files. Each file is parsed by a single
+     * worker, and the caches are still handed over in the order of the files. The default is 1, which parses the
+     * files one after another on the calling thread.
+     *
+     * @param threads The maximum number of files to parse at the same time.
+     * @return This reader.
+     */
+    public GeoXMLReader threads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1, was " + threads + ".");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Limits the parsing to the given parts of the caches. The other parts are skipped without creating any objects
+     * out of them, which makes the parsing faster and the resulting caches smaller. By default all the fields are
+     * read.
+     *
+     * @param fields The parts of the caches to read.
+     * @return This reader.
+     */
+    public GeoXMLReader fields(final Set<GeocacheField> fields) {
+        this.fields = EnumSet.noneOf(GeocacheField.class);
+        this.fields.addAll(fields);
+        return this;
+    }
+
+    /**
+     * Sets the policy that decides which logs of each cache are kept. The other logs are skipped while parsing, which
+     * saves a lot of memory with log-heavy files. By default all the logs are kept.
+     *
+     * @param logRetention The policy to use.
+     * @return This reader.
+     */
+    public GeoXMLReader logRetention(final LogRetention logRetention) {
+        this.logRetention = logRetention;
+        return this;
+    }
+
+    /**
+     * Stores the caches of each file in the given parse cache, and reads the caches of the files that have not
+     * changed since they were stored from there instead of parsing the files again. By default nothing is stored.
+     *
+     * @param parseCache The parse cache to use, or null to parse every file.
+     * @return This reader.
+     */
+    public GeoXMLReader parseCache(final ParseCache parseCache) {
+        this.parseCache = parseCache;
+        return this;
+    }
+
+    /**
+     * Sets whether the parsing is split into a pipeline of stages that work at the same time: each file is read and
+     * decompressed on a virtual thread, decoded on one of the {@link #threads(int) worker threads}, and handed over to
+     * the consumer on the calling thread. The stages are connected with bounded queues, so a fast stage waits for a
+     * slow one instead of filling the memory, and the time spent waiting for the disk overlaps with the decoding.
+     * The caches are still handed over in the order of the files. Disabled by default.
+     *
+     * @param pipelined True to use the pipeline.
+     * @return This reader.
+     */
+    public GeoXMLReader pipelined(final boolean pipelined) {
+        this.pipelined = pipelined;
+        return this;
+    }
+
+    /**
+     * Sets where the descriptions, hints and log texts are kept. The default is {@link TextStorage#HEAP}.
+     *
+     * @param textStorage The storage to use.
+     * @return This reader.
+     */
+    public GeoXMLReader textStorage(final TextStorage textStorage) {
+        this.textStorage = textStorage;
+        return this;
+    }
+
     private static void info(final String text) {
         System.out.println(text);
     }
 
-    public List<Geocache> parse() {
-        return parseXmlFilesToObjects(this.file);
+    /**
+     * @return The measurements of the latest {@link #parse(Consumer)}, or null if nothing has been parsed yet. The
+     * caches read with {@link #stream()} are not measured.
+     */
+    public ParseMetrics getMetrics() {
+        return metrics;
     }
 
-    private List<Geocache> parseXMLtoObjects(final Document dom) {
-        final List<Geocache> geocaches = new LinkedList<>();
-        final Element root = dom.getDocumentElement();
+    public List<Geocache> parse() {
+        final List<Geocache> caches = new LinkedList<>();
+        parse(caches::add);
+        return caches;
+    }
 
-        final NodeList caches = root.getElementsByTagName("wpt");
-        info(caches.getLength() + " caches found...");
-        if (caches == null || caches.getLength() < 1) {
-            return new LinkedList<>();
+    /**
+     * Parses the caches and hands each of them over to the given consumer as soon as it has been created. Combined
+     * with the {@link Engine#STAX} engine this allows processing files of any size, as long as the consumer does not
+     * hold on to the caches.
+     *
+     * @param consumer Receives the caches in the order they appear in the files.
+     */
+    public void parse(final Consumer<Geocache> consumer) {
+        final long start = System.nanoTime();
+        ParseMetrics.resetPeakHeapUsage();
+        final DecodingContext context = newContext();
+        final List<GpxInput> files = listFiles(this.file);
+        final Map<GpxInput, ParseMetrics.FileMetrics> fileMetrics = new ConcurrentHashMap<>();
+        parseXmlFilesToObjects(files, context, fileMetrics, consumer);
+        metrics = new ParseMetrics(files.stream().map(fileMetrics::get).filter(Objects::nonNull)
+                .collect(Collectors.toList()), System.nanoTime() - start, ParseMetrics.peakHeapBytes());
+        info("String table: " + context.getSymbols() + ".");
+        if (context.getTextArena() != null) {
+            info("Text arena: " + context.getTextArena().getSize() + " bytes.");
         }
+        info("Parsed " + metrics + ".");
+    }
 
-        for (int i = 0; i < caches.getLength(); i++) {
-            final Element wptElement = (Element) caches.item(i);
-            final Geocache geocache = getGeocache(wptElement);
-            geocaches.add(geocache);
-        }
-        return geocaches;
+    /**
+     * Returns a lazy stream of the caches. Nothing is parsed before the stream is consumed, and only as much is
+     * parsed as the consumer asks for, so short-circuiting operations such as {@link Stream#limit(long)} and
+     * {@link Stream#findFirst()} stop the parsing early. The files are always parsed one at a time, regardless of
+     * the {@link #threads(int)} setting.
+     * <p>
+     * The stream should be closed after use, preferably with a try-with-resources statement, so that the file that
+     * is being read gets closed even if the stream was not consumed to its end.
+     *
+     * @return The caches in the order they appear in the files.
+     */
+    public Stream<Geocache> stream() {
+        final GeocacheIterator iterator = new GeocacheIterator(listFiles(this.file), newContext());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
     }
 
-    private static Element getSubElement(final Element parent, final String subElementName) {
-        return (Element) parent.getElementsByTagName(subElementName).item(0);
+    private DecodingContext newContext() {
+        final TextArena textArena = textStorage == TextStorage.HEAP ? null
+                : new TextArena(textStorage == TextStorage.OFF_HEAP_COMPRESSED);
+        return new DecodingContext(fields, logRetention, new SymbolTable(), textArena);
     }
 
-    private static String getSubElementContent(final Element parent, final String subElementName) {
-        return getSubElement(parent, subElementName).getTextContent();
+    private GeocacheSource openFile(final GpxInput xmlFile, final DecodingContext context)
+            throws IOException, XMLStreamException, SAXException, ParserConfigurationException {
+        if (parseCache == null) {
+            return openXml(xmlFile, context);
+        }
+        final GeocacheSource stored = parseCache.open(xmlFile, context);
+        if (stored != null) {
+            info("Using the stored caches of file " + xmlFile + ".");
+            context.markFromParseCache();
+            return stored;
+        }
+        return parseCache.record(xmlFile, context, openXml(xmlFile, context));
     }
 
-    private Geocache getGeocache(final Element wptElement) {
-        final Element groundspeak = getSubElement(wptElement, "groundspeak:cache");
-        final Geocache.Builder builder = Geocache.builder()
+    private GeocacheSource openXml(final GpxInput xmlFile, final DecodingContext context)
+            throws IOException, XMLStreamException, SAXException, ParserConfigurationException {
+        if (engine == Engine.MAPPED && xmlFile.getPlainFile() != null) {
+            context.countBytes(xmlFile.getPlainFile().length());
+            return new MappedGeocacheReader(xmlFile.getPlainFile(), context);
+        }
+        final InputStream input = new CountingInputStream(
+                pipelined ? new PrefetchingInputStream(xmlFile) : xmlFile.open(), context);
+        try {
+            if (engine == Engine.DOM) {
+                return new DomGeocacheReader(input, context);
+            }
+            // Compressed files cannot be mapped, so the mapped engine streams them instead:
+            return new StaxGeocacheReader(input, context);
+        } catch (IOException | XMLStreamException | SAXException | ParserConfigurationException | RuntimeException ex) {
+            input.close();
+            throw ex;
+        }
+    }
 
-                .latitude(Double.valueOf(wptElement.getAttribute("lat")))
-                .longitude(Double.valueOf(wptElement.getAttribute("lon")))
+    private static List<GpxInput> listFiles(final String path) {
+        final List<GpxInput> files = GpxInput.list(path);
+        info("Found " + files.size() + " files.");
+        return files;
+    }
 
-                .hidden(parseTime(getSubElementContent(wptElement, "time")))
-                .gcCode(getSubElementContent(wptElement, "name"))
+    private void parseXmlFilesToObjects(final List<GpxInput> files, final DecodingContext context,
+                                        final Map<GpxInput, ParseMetrics.FileMetrics> fileMetrics,
+                                        final Consumer<Geocache> consumer) {
+        if (pipelined && !files.isEmpty()) {
+            parseFilesInPipeline(files, context, fileMetrics, consumer);
+        } else if (threads > 1 && files.size() > 1) {
+            parseFilesInParallel(files, context, fileMetrics, consumer);
+        } else {
+            for (GpxInput xmlFile : files) {
+                fileMetrics.put(xmlFile, parseFile(xmlFile, context, consumer));
+            }
+        }
+    }
 
-                .archived(Boolean.valueOf(groundspeak.getAttribute("archived")))
-                .available(Boolean.valueOf(groundspeak.getAttribute("available")))
+    /**
+     * Parses each file on its own worker thread. The caches of a file are collected into a list of their own, and
+     * the lists are then handed over in the order of the files, so the result does not depend on which worker
+     * happens to finish first.
+     */
+    private void parseFilesInParallel(final List<GpxInput> files, final DecodingContext context,
+                                      final Map<GpxInput, ParseMetrics.FileMetrics> fileMetrics,
+                                      final Consumer<Geocache> consumer) {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            final List<Future<List<Geocache>>> results = new ArrayList<>(files.size());
+            for (final GpxInput xmlFile : files) {
+                results.add(executor.submit(() -> {
+                    final List<Geocache> caches = new ArrayList<>();
+                    fileMetrics.put(xmlFile, parseFile(xmlFile, context, caches::add));
+                    return caches;
+                }));
+            }
+            for (final Future<List<Geocache>> result : results) {
+                result.get().forEach(consumer);
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the files.", interrupted);
+        } catch (ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                .name(getSubElementContent(groundspeak, "groundspeak:name"))
-                .country(getSubElementContent(groundspeak, "groundspeak:country"))
-                .state(getSubElementContent(groundspeak, "groundspeak:state"))
-                .owner(getSubElementContent(groundspeak, "groundspeak:owner"))
-                .type(CacheType.getByGpxDescription(getSubElementContent(groundspeak, "groundspeak:type")))
-                .size(CacheSize.getByGpxDescription(getSubElementContent(groundspeak, "groundspeak:container")))
-                .difficulty(Float.parseFloat(getSubElementContent(groundspeak, "groundspeak:difficulty")))
-                .terrain(Float.parseFloat(getSubElementContent(groundspeak, "groundspeak:terrain")))
-                .shortDescription(getSubElementContent(groundspeak, "groundspeak:short_description"))
-                .longDescription(getSubElementContent(groundspeak, "groundspeak:long_description"))
-                .hint(getSubElementContent(groundspeak, "groundspeak:encoded_hints"));
+    /**
+     * Decodes the files on the worker threads while the caches are handed over to the consumer on the calling thread.
+     * The workers take the files in order, and the consumer always waits for the earliest file that has not been
+     * finished yet, so each worker either makes progress or waits for the consumer to catch up with its file.
+     */
+    private void parseFilesInPipeline(final List<GpxInput> files, final DecodingContext context,
+                                      final Map<GpxInput, ParseMetrics.FileMetrics> fileMetrics,
+                                      final Consumer<Geocache> consumer) {
+        final ExecutorService decoders = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            final List<BlockingQueue<Geocache>> queues = new ArrayList<>(files.size());
+            final List<Future<?>> results = new ArrayList<>(files.size());
+            for (final GpxInput xmlFile : files) {
+                final BlockingQueue<Geocache> queue = new ArrayBlockingQueue<>(PIPELINE_QUEUE_SIZE);
+                queues.add(queue);
+                results.add(decoders.submit(() -> {
+                    try {
+                        fileMetrics.put(xmlFile, parseFile(xmlFile, context, cache -> put(queue, cache)));
+                    } finally {
+                        put(queue, END_OF_FILE);
+                    }
+                }));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                final BlockingQueue<Geocache> queue = queues.get(i);
+                for (Geocache cache = queue.take(); cache != END_OF_FILE; cache = queue.take()) {
+                    consumer.accept(cache);
+                }
+                results.get(i).get();
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the files.", interrupted);
+        } catch (ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
 
-        // Parse the attributes into a map where key is the attribute name and
-        // value is the value of that attribute:
-        final Element attributesElement = getSubElement(groundspeak, "groundspeak:attributes");
-        for (final Element attributeElement : new IterableSubElements(attributesElement)) {
-            builder.attribute(attributeElement.getTextContent(), "1".equals(attributeElement.getAttribute("inc")));
+    private static void put(final BlockingQueue<Geocache> queue, final Geocache cache) {
+        try {
+            queue.put(cache);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The parsing was cancelled.");
         }
+    }
 
-        final Element logsElement = getSubElement(groundspeak, "groundspeak:logs");
-        for (final Element logElement : new IterableSubElements(logsElement)) {
-            final Log log = Log.builder()
-                    .id(Long.parseLong(logElement.getAttribute("id")))
-                    .date(parseTime(getSubElementContent(logElement, "groundspeak:date")))
-                    .type(LogType.getByGpxDescription(getSubElementContent(logElement, "groundspeak:type")))
-                    .user(getSubElementContent(logElement, "groundspeak:finder"))
-                    .text(getSubElementContent(logElement, "groundspeak:text"))
-                    .build();
-            builder.addLog(log);
+    /**
+     * Parses a single file. Errors in reading or parsing the file are reported and do not affect the other files;
+     * the caches read before the error was encountered are kept.
+     *
+     * @return The measurements of the file.
+     */
+    private ParseMetrics.FileMetrics parseFile(final GpxInput xmlFile, final DecodingContext context,
+                                               final Consumer<Geocache> consumer) {
+        info("Parsing file " + xmlFile + "...");
+        final DecodingContext fileContext = context.forFile();
+        final long start = System.nanoTime();
+        final long cpuStart = cpuTime();
+        int count = 0;
+        long logs = 0;
+        boolean failed = false;
+        try (final GeocacheSource source = openFile(xmlFile, fileContext)) {
+            for (Geocache geocache = source.next(); geocache != null; geocache = source.next()) {
+                consumer.accept(geocache);
+                count++;
+                logs += geocache.getLogs().size();
+            }
+        } catch (ParserConfigurationException | SAXException | XMLStreamException
+                | IllegalArgumentException | IOException exception) {
+            reportError(xmlFile, exception);
+            failed = true;
         }
+        info(count + " caches found...");
+        final long cpuEnd = cpuTime();
+        return new ParseMetrics.FileMetrics(xmlFile.toString(), fileContext.isFromParseCache(), failed,
+                fileContext.getBytes(), System.nanoTime() - start, cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart,
+                count, logs, fileContext.getFailedTimestamps());
+    }
 
-        return builder.build();
+    /**
+     * @return The CPU time of the current thread in nanoseconds, or -1 if it cannot be measured.
+     */
+    private static long cpuTime() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
     }
 
-    private List<Geocache> parseXmlFilesToObjects(final String path) {
-        final List<Geocache> caches = new LinkedList<>();
-        final File[] files;
-        final File gpx = new File(path);
-        if (gpx.isDirectory()) {
-            files = gpx.listFiles((dir, name) -> name.toLowerCase().endsWith(".gpx"));
+    private static void reportError(final GpxInput xmlFile, final Exception exception) {
+        if (exception instanceof IllegalArgumentException || exception instanceof IOException) {
+            System.err.println("Error in reading file '" + xmlFile + "'!");
         } else {
-            files = new File[1];
-            files[0] = new File(path);
-        }
-        info("Found " + files.length + " files.");
-        final DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        for (File xmlFile : files) {
-            info("Parsing file " + xmlFile + "...");
-            try {
-                final DocumentBuilder db = dbFactory.newDocumentBuilder();
-                final Document xml = db.parse(xmlFile);
-                caches.addAll(this.parseXMLtoObjects(xml));
-            } catch (ParserConfigurationException | SAXException xmlException) {
-                System.err.println("Error in parsing XML!");
-                xmlException.printStackTrace();
-            } catch (IllegalArgumentException | IOException ioException) {
-                System.err.println("Error in reading file '" + xmlFile + "'!");
-                ioException.printStackTrace();
-            }
+            System.err.println("Error in parsing XML!");
         }
-        return caches;
+        exception.printStackTrace();
     }
 
-    private LocalDateTime parseTime(final String xmlTimeString) {
-        try {
-            return ZonedDateTime.parse(xmlTimeString).toLocalDateTime();
-        } catch (DateTimeParseException tryFormatWithTimeZoneMissing) {
-            if (xmlTimeString.matches("\\d\\d\\d\\d-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d")) {
+    /**
+     * Iterates over the caches of the given files, opening each file only when the caches of the previous one have
+     * been used up. Errors are handled the same way as in {@link #parseFile(GpxInput, DecodingContext, Consumer)}: they are reported, and
+     * the iteration continues from the next file.
+     */
+    private final class GeocacheIterator implements Iterator<Geocache> {
+        private final List<GpxInput> files;
+        private final DecodingContext context;
+        private int fileIndex = 0;
+        private GpxInput currentFile;
+        private GeocacheSource current;
+        private Geocache nextCache;
+
+        GeocacheIterator(final List<GpxInput> files, final DecodingContext context) {
+            this.files = files;
+            this.context = context;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextCache == null) {
+                if (current == null) {
+                    if (fileIndex >= files.size()) {
+                        return false;
+                    }
+                    currentFile = files.get(fileIndex++);
+                    info("Parsing file " + currentFile + "...");
+                    try {
+                        current = openFile(currentFile, context);
+                    } catch (ParserConfigurationException | SAXException | XMLStreamException
+                            | IllegalArgumentException | IOException exception) {
+                        reportError(currentFile, exception);
+                        continue;
+                    }
+                }
                 try {
-                    return ZonedDateTime.parse(xmlTimeString + "Z").toLocalDateTime();
-                } catch (IllegalArgumentException ignore) {
+                    nextCache = current.next();
+                } catch (XMLStreamException | IllegalArgumentException | IOException exception) {
+                    reportError(currentFile, exception);
                 }
+                if (nextCache == null) {
+                    close();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Geocache next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            final Geocache result = nextCache;
+            nextCache = null;
+            return result;
+        }
+
+        void close() {
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException exception) {
+                    reportError(currentFile, exception);
+                }
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from a file.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final DecodingContext context;
+
+        CountingInputStream(final InputStream input, final DecodingContext context) {
+            super(input);
+            this.context = context;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                context.countBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                context.countBytes(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            final long skipped = super.skip(count);
+            context.countBytes(skipped);
+            return skipped;
         }
-        return null;
     }
 }
@@ -1,6 +1,7 @@
 package io.github.zeroone3010.geogpxparser;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -9,53 +10,102 @@ import java.util.Map;
 
 /**
  * This class represents one geocache.
+ * <p>
+ * Millions of caches may be kept in memory at once, so the fields are stored compactly: the type, size, ratings and
+ * status flags are packed into a single int, the coordinates into ints and the hidden date into a long. The getters
+ * decode them on each call.
  *
  * @author Ville Saalo (http://coord.info/PR32K8V)
  */
 public final class Geocache {
+    /**
+     * The value of {@link #hidden} when the hidden date is not known.
+     */
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * The coordinates are stored as integers of this many degrees, which is exact for the at most seven decimals
+     * that the .gpx files have.
+     */
+    private static final double COORDINATE_SCALE = 1e7;
+
+    // The bits of the packed field. The type and size are stored as their ordinal plus one, so that zero means null,
+    // and the ratings as the number of half stars:
+    private static final int TYPE_SHIFT = 0;
+    private static final int SIZE_SHIFT = 4;
+    private static final int DIFFICULTY_SHIFT = 8;
+    private static final int TERRAIN_SHIFT = 12;
+    private static final int AVAILABLE_BIT = 1 << 16;
+    private static final int ARCHIVED_BIT = 1 << 17;
+    private static final int NIBBLE = 0xF;
+
+    private static final CacheType[] TYPES = CacheType.values();
+    private static final CacheSize[] SIZES = CacheSize.values();
+
     private final String gcCode;
-    private final double latitude;
-    private final double longitude;
+    private final int latitude;
+    private final int longitude;
     private final String country;
     private final String state;
-    private final LocalDateTime hidden;
-    private final CacheType type;
-    private final CacheSize size;
-    private final float difficulty;
-    private final float terrain;
+    // The local date-time as seconds from the epoch, as if it were in UTC:
+    private final long hidden;
+    private final int packed;
     private final Map<String, Boolean> attributes;
     private final String name;
     private final String owner;
-    private final String shortDescription;
-    private final String longDescription;
-    private final String hint;
-    private final boolean available;
-    private final boolean archived;
-    private final List<Log> logs;
+    // The long texts are either strings or views to a TextArena:
+    private final CharSequence shortDescription;
+    private final CharSequence longDescription;
+    private final CharSequence hint;
+    private final LogStore logs;
+    // The values that do not fit in the compact fields above, or null if all of them do:
+    private final Irregular irregular;
 
     private Geocache(String gcCode, double latitude, double longitude, String country, String state,
                      LocalDateTime hidden, CacheType type, CacheSize size, float difficulty, float terrain,
-                     Map<String, Boolean> attributes, String name, String owner, String shortDescription,
-                     String longDescription, String hint, boolean available, boolean archived, List<Log> logs) {
+                     Map<String, Boolean> attributes, String name, String owner, CharSequence shortDescription,
+                     CharSequence longDescription, CharSequence hint, boolean available, boolean archived, LogStore logs) {
         this.gcCode = gcCode;
-        this.latitude = latitude;
-        this.longitude = longitude;
+        this.latitude = (int) Math.round(latitude * COORDINATE_SCALE);
+        this.longitude = (int) Math.round(longitude * COORDINATE_SCALE);
         this.country = country;
         this.state = state;
-        this.hidden = hidden;
-        this.type = type;
-        this.size = size;
-        this.difficulty = difficulty;
-        this.terrain = terrain;
-        this.attributes = Collections.unmodifiableMap(attributes);
+        this.hidden = hidden == null ? NO_DATE : hidden.toEpochSecond(ZoneOffset.UTC);
+        this.packed = (type == null ? 0 : type.ordinal() + 1) << TYPE_SHIFT
+                | (size == null ? 0 : size.ordinal() + 1) << SIZE_SHIFT
+                | halfStars(difficulty) << DIFFICULTY_SHIFT
+                | halfStars(terrain) << TERRAIN_SHIFT
+                | (available ? AVAILABLE_BIT : 0)
+                | (archived ? ARCHIVED_BIT : 0);
+        this.attributes = attributes.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(attributes);
         this.name = name;
         this.owner = owner;
         this.shortDescription = shortDescription;
         this.longDescription = longDescription;
         this.hint = hint;
-        this.available = available;
-        this.archived = archived;
-        this.logs = Collections.unmodifiableList(logs);
+        this.logs = logs;
+        this.irregular = fitsCompactFields(latitude, longitude, hidden, difficulty, terrain) ? null
+                : new Irregular(latitude, longitude, hidden, difficulty, terrain);
+    }
+
+    private static int halfStars(final float rating) {
+        return Math.round(rating * 2) & NIBBLE;
+    }
+
+    private static boolean fitsCompactFields(final double latitude, final double longitude,
+                                             final LocalDateTime hidden, final float difficulty, final float terrain) {
+        return fitsCoordinate(latitude) && fitsCoordinate(longitude)
+                && (hidden == null || hidden.getNano() == 0)
+                && fitsRating(difficulty) && fitsRating(terrain);
+    }
+
+    private static boolean fitsCoordinate(final double degrees) {
+        return Math.abs(degrees) <= 180
+                && Double.compare(Math.round(degrees * COORDINATE_SCALE) / COORDINATE_SCALE, degrees) == 0;
+    }
+
+    private static boolean fitsRating(final float rating) {
+        return Float.compare((Math.round(rating * 2) & NIBBLE) / 2f, rating) == 0;
     }
 
     public String getGcCode() {
@@ -63,11 +113,11 @@ public final class Geocache {
     }
 
     public double getLatitude() {
-        return latitude;
+        return irregular != null ? irregular.latitude : latitude / COORDINATE_SCALE;
     }
 
     public double getLongitude() {
-        return longitude;
+        return irregular != null ? irregular.longitude : longitude / COORDINATE_SCALE;
     }
 
     public String getCountry() {
@@ -79,23 +129,28 @@ public final class Geocache {
     }
 
     public LocalDateTime getHidden() {
-        return hidden;
+        if (irregular != null) {
+            return irregular.hidden;
+        }
+        return hidden == NO_DATE ? null : LocalDateTime.ofEpochSecond(hidden, 0, ZoneOffset.UTC);
     }
 
     public CacheType getType() {
-        return type;
+        final int ordinal = (packed >>> TYPE_SHIFT & NIBBLE) - 1;
+        return ordinal < 0 ? null : TYPES[ordinal];
     }
 
     public CacheSize getSize() {
-        return size;
+        final int ordinal = (packed >>> SIZE_SHIFT & NIBBLE) - 1;
+        return ordinal < 0 ? null : SIZES[ordinal];
     }
 
     public float getDifficulty() {
-        return difficulty;
+        return irregular != null ? irregular.difficulty : (packed >>> DIFFICULTY_SHIFT & NIBBLE) / 2f;
     }
 
     public float getTerrain() {
-        return terrain;
+        return irregular != null ? irregular.terrain : (packed >>> TERRAIN_SHIFT & NIBBLE) / 2f;
     }
 
     public Map<String, Boolean> getAttributes() {
@@ -111,19 +166,20 @@ public final class Geocache {
     }
 
     public String getShortDescription() {
-        return shortDescription;
+        return plainText(shortDescription);
     }
 
     public String getLongDescription() {
-        return longDescription;
+        return plainText(longDescription);
     }
 
     public String getHint(final boolean decrypted) {
-        if (decrypted) {
-            return hint;
+        final String plainHint = plainText(hint);
+        if (decrypted || plainHint == null) {
+            return plainHint;
         }
         final StringBuilder encryptedHint = new StringBuilder();
-        for (char character : hint.toCharArray()) {
+        for (char character : plainHint.toCharArray()) {
             if (character >= 'A' && character <= 'Z') {
                 encryptedHint.append((char) ((((character + 13) - 'A') % 26) + 'A'));
             } else if (character >= 'a' && character <= 'z') {
@@ -136,17 +192,49 @@ public final class Geocache {
     }
 
     public boolean isAvailable() {
-        return available;
+        return (packed & AVAILABLE_BIT) != 0;
     }
 
     public boolean isArchived() {
-        return archived;
+        return (packed & ARCHIVED_BIT) != 0;
     }
 
+    /**
+     * @return The logs of the cache. The list cannot be modified.
+     */
     public List<Log> getLogs() {
         return logs;
     }
 
+    LogStore getLogStore() {
+        return logs;
+    }
+
+    static String plainText(final CharSequence text) {
+        return text == null ? null : text.toString();
+    }
+
+    /**
+     * The exact values of a cache whose coordinates, hidden time or ratings are more precise than the compact fields
+     * can hold. The caches read from .gpx files never need one.
+     */
+    private static final class Irregular {
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime hidden;
+        private final float difficulty;
+        private final float terrain;
+
+        Irregular(final double latitude, final double longitude, final LocalDateTime hidden, final float difficulty,
+                  final float terrain) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.hidden = hidden;
+            this.difficulty = difficulty;
+            this.terrain = terrain;
+        }
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -171,6 +259,8 @@ public final class Geocache {
         private boolean available;
         private boolean archived;
         private final List<Log> logs = new ArrayList<>();
+        private TextArena textArena;
+        private SymbolTable symbols;
 
         public Builder gcCode(String gcCode) {
             this.gcCode = gcCode;
@@ -272,11 +362,40 @@ public final class Geocache {
             return this;
         }
 
+        /**
+         * Stores the descriptions and the hint of the cache in the given arena instead of the heap.
+         *
+         * @param textArena The arena to use, or null to keep the texts in the heap.
+         */
+        Builder textArena(TextArena textArena) {
+            this.textArena = textArena;
+            return this;
+        }
+
+        /**
+         * Encodes the finders of the logs with the given table, which is shared with the other caches of the same
+         * parse. Without one, the names of the finders are stored as they are.
+         *
+         * @param symbols The table to use.
+         */
+        Builder symbols(SymbolTable symbols) {
+            this.symbols = symbols;
+            return this;
+        }
+
         public Geocache build() {
+            final LogStore logStore = logs.isEmpty() ? LogStore.EMPTY
+                    : LogStore.of(logs, symbols);
+            if (textArena != null) {
+                return new Geocache(gcCode, latitude, longitude, country, state,
+                        hidden, type, size, difficulty, terrain, attributes, name,
+                        owner, textArena.store(shortDescription), textArena.store(longDescription),
+                        textArena.store(hint), available, archived, logStore);
+            }
             return new Geocache(gcCode, latitude, longitude, country, state,
                     hidden, type, size, difficulty, terrain, attributes, name,
                     owner, shortDescription, longDescription, hint, available,
-                    archived, logs);
+                    archived, logStore);
         }
     }
 }
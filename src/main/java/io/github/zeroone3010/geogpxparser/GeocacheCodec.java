@@ -0,0 +1,239 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts geocaches to a compact binary form and back. The strings that repeat from one cache to another, such as the
+ * owners, countries and log finders, are written only once per stream and referred to by their index after that.
+ * <p>
+ * The enums are stored by their ordinals, so {@link #VERSION} has to be changed whenever the format or any of the
+ * enums change.
+ */
+final class GeocacheCodec {
+
+    /**
+     * The version of the binary format.
+     */
+    static final int VERSION = 1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NULL = -1;
+
+    private GeocacheCodec() { /* prevent */}
+
+    /**
+     * Writes geocaches into a single stream.
+     */
+    static final class Encoder {
+        private final DataOutput output;
+        private final Map<String, Integer> symbols = new HashMap<>();
+
+        Encoder(final DataOutput output) {
+            this.output = output;
+        }
+
+        void write(final Geocache cache) throws IOException {
+            writeText(cache.getGcCode());
+            output.writeDouble(cache.getLatitude());
+            output.writeDouble(cache.getLongitude());
+            writeSymbol(cache.getCountry());
+            writeSymbol(cache.getState());
+            writeDate(cache.getHidden());
+            output.writeByte(cache.getType() == null ? NULL : cache.getType().ordinal());
+            output.writeByte(cache.getSize() == null ? NULL : cache.getSize().ordinal());
+            output.writeFloat(cache.getDifficulty());
+            output.writeFloat(cache.getTerrain());
+            writeText(cache.getName());
+            writeSymbol(cache.getOwner());
+            writeText(cache.getShortDescription());
+            writeText(cache.getLongDescription());
+            writeText(cache.getHint(true));
+            output.writeBoolean(cache.isAvailable());
+            output.writeBoolean(cache.isArchived());
+
+            writeCount(cache.getAttributes().size());
+            for (final Map.Entry<String, Boolean> attribute : cache.getAttributes().entrySet()) {
+                writeSymbol(attribute.getKey());
+                output.writeByte(attribute.getValue() == null ? NULL : (attribute.getValue() ? 1 : 0));
+            }
+
+            writeCount(cache.getLogs().size());
+            for (final Log log : cache.getLogs()) {
+                output.writeLong(log.getId());
+                writeSymbol(log.getUser());
+                writeDate(log.getDate());
+                output.writeByte(log.getType() == null ? NULL : log.getType().ordinal());
+                writeText(log.getText());
+            }
+        }
+
+        private void writeCount(final int count) throws IOException {
+            writeVarInt(output, count);
+        }
+
+        private void writeDate(final LocalDateTime date) throws IOException {
+            if (date == null) {
+                output.writeLong(NO_DATE);
+            } else {
+                output.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+                writeVarInt(output, date.getNano());
+            }
+        }
+
+        private void writeText(final String text) throws IOException {
+            if (text == null) {
+                writeVarInt(output, 0);
+                return;
+            }
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(output, bytes.length + 1);
+            output.write(bytes);
+        }
+
+        /**
+         * Writes 0 for null, 1 followed by the text for a new string, or 2 + the index of a string seen before.
+         */
+        private void writeSymbol(final String symbol) throws IOException {
+            if (symbol == null) {
+                writeVarInt(output, 0);
+                return;
+            }
+            final Integer index = symbols.get(symbol);
+            if (index != null) {
+                writeVarInt(output, index + 2);
+                return;
+            }
+            symbols.put(symbol, symbols.size());
+            writeVarInt(output, 1);
+            writeText(symbol);
+        }
+    }
+
+    /**
+     * Reads the geocaches of a stream written by an {@link Encoder}.
+     */
+    static final class Decoder {
+        private final DataInput input;
+        private final DecodingContext context;
+        private final List<String> symbols = new ArrayList<>();
+
+        /**
+         * @param input   The stream to read.
+         * @param context The context whose strings and text arena the caches share with the rest of the caches.
+         */
+        Decoder(final DataInput input, final DecodingContext context) {
+            this.input = input;
+            this.context = context;
+        }
+
+        Geocache read() throws IOException {
+            final Geocache.Builder builder = Geocache.builder().textArena(context.getTextArena()).symbols(context.getSymbols())
+                    .gcCode(readText())
+                    .latitude(input.readDouble())
+                    .longitude(input.readDouble())
+                    .country(readSymbol())
+                    .state(readSymbol())
+                    .hidden(readDate())
+                    .type(readEnum(CacheType.values()))
+                    .size(readEnum(CacheSize.values()))
+                    .difficulty(input.readFloat())
+                    .terrain(input.readFloat())
+                    .name(readText())
+                    .owner(readSymbol())
+                    .shortDescription(readText())
+                    .longDescription(readText())
+                    .hint(readText())
+                    .available(input.readBoolean())
+                    .archived(input.readBoolean());
+
+            final int attributes = readVarInt(input);
+            for (int i = 0; i < attributes; i++) {
+                final String name = readSymbol();
+                final byte value = input.readByte();
+                builder.attribute(name, value == NULL ? null : value == 1);
+            }
+
+            final int logs = readVarInt(input);
+            for (int i = 0; i < logs; i++) {
+                builder.addLog(Log.builder().textArena(context.getTextArena())
+                        .id(input.readLong())
+                        .user(readSymbol())
+                        .date(readDate())
+                        .type(readEnum(LogType.values()))
+                        .text(readText())
+                        .build());
+            }
+            return builder.build();
+        }
+
+        private <E extends Enum<E>> E readEnum(final E[] values) throws IOException {
+            final byte ordinal = input.readByte();
+            if (ordinal == NULL) {
+                return null;
+            } else if (ordinal < 0 || ordinal >= values.length) {
+                throw new IOException("Unknown ordinal " + ordinal + ".");
+            }
+            return values[ordinal];
+        }
+
+        private LocalDateTime readDate() throws IOException {
+            final long seconds = input.readLong();
+            if (seconds == NO_DATE) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(seconds, readVarInt(input), ZoneOffset.UTC);
+        }
+
+        private String readText() throws IOException {
+            final int length = readVarInt(input) - 1;
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String readSymbol() throws IOException {
+            final int code = readVarInt(input);
+            if (code == 0) {
+                return null;
+            } else if (code == 1) {
+                final String symbol = context.symbol(readText());
+                symbols.add(symbol);
+                return symbol;
+            }
+            return symbols.get(code - 2);
+        }
+    }
+
+    static void writeVarInt(final DataOutput output, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    static int readVarInt(final DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer.");
+    }
+}
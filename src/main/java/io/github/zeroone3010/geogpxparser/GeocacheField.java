@@ -0,0 +1,41 @@
+package io.github.zeroone3010.geogpxparser;
+
+/**
+ * The parts of a geocache that {@link GeoXMLReader} can be asked to read. The parts that are not requested are
+ * skipped while parsing and are left empty in the resulting {@link Geocache} objects: null for the texts and the
+ * objects, zero for the numbers, false for the flags and empty for the collections.
+ *
+ * @see GeoXMLReader#fields(java.util.Set)
+ */
+public enum GeocacheField {
+    GC_CODE,
+    NAME,
+    /**
+     * The latitude and the longitude.
+     */
+    COORDINATES,
+    HIDDEN,
+    TYPE,
+    SIZE,
+    DIFFICULTY,
+    TERRAIN,
+    OWNER,
+    COUNTRY,
+    STATE,
+    SHORT_DESCRIPTION,
+    LONG_DESCRIPTION,
+    HINT,
+    ATTRIBUTES,
+    /**
+     * The available and archived flags.
+     */
+    STATUS,
+    /**
+     * The id, date, type and finder of each log.
+     */
+    LOGS,
+    /**
+     * The text of each log. Has no effect without {@link #LOGS}.
+     */
+    LOG_TEXTS
+}
@@ -0,0 +1,20 @@
+package io.github.zeroone3010.geogpxparser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of geocaches read from a single .gpx file, one cache at a time.
+ */
+interface GeocacheSource extends Closeable {
+
+    /**
+     * Returns the next geocache of the file.
+     *
+     * @return The next geocache, or null if there are no more caches left.
+     * @throws XMLStreamException If the XML is malformed.
+     * @throws IOException        If the file cannot be read.
+     */
+    Geocache next() throws XMLStreamException, IOException;
+}
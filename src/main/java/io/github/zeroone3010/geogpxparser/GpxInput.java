@@ -0,0 +1,169 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A single .gpx document to be parsed: a plain .gpx file, a gzipped .gpx.gz file, or a .gpx entry inside a .zip
+ * archive, such as the ones Pocket Queries are delivered in. Compressed documents are decompressed on the fly while
+ * they are being parsed, without any temporary files.
+ */
+final class GpxInput {
+
+    private static final String GPX = ".gpx";
+    private static final String GZIP = ".gpx.gz";
+    private static final String ZIP = ".zip";
+
+    private final File file;
+    private final String entryName;
+
+    private GpxInput(final File file, final String entryName) {
+        this.file = file;
+        this.entryName = entryName;
+    }
+
+    /**
+     * Lists the documents in the given path. A directory is listed in the order of the file names, and the entries
+     * of an archive in the order they are stored in the archive.
+     *
+     * @param path A .gpx, .gpx.gz or .zip file, or a directory with such files.
+     * @return The documents to be parsed.
+     */
+    static List<GpxInput> list(final String path) {
+        final File[] files;
+        final File gpx = new File(path);
+        if (gpx.isDirectory()) {
+            files = gpx.listFiles((dir, name) -> isSupported(name));
+            Arrays.sort(files);
+        } else {
+            files = new File[1];
+            files[0] = gpx;
+        }
+        final List<GpxInput> inputs = new ArrayList<>(files.length);
+        for (final File file : files) {
+            if (file.getName().toLowerCase().endsWith(ZIP)) {
+                inputs.addAll(listArchive(file));
+            } else {
+                inputs.add(new GpxInput(file, null));
+            }
+        }
+        return inputs;
+    }
+
+    private static boolean isSupported(final String fileName) {
+        final String name = fileName.toLowerCase();
+        return name.endsWith(GPX) || name.endsWith(GZIP) || name.endsWith(ZIP);
+    }
+
+    private static List<GpxInput> listArchive(final File archive) {
+        final List<GpxInput> entries = new ArrayList<>();
+        try (final ZipFile zip = new ZipFile(archive)) {
+            final Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                final ZipEntry entry = zipEntries.nextElement();
+                if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(GPX)) {
+                    entries.add(new GpxInput(archive, entry.getName()));
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Error in reading file '" + archive + "'!");
+            ex.printStackTrace();
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the plain .gpx file of this document.
+     *
+     * @return The file, or null if the document is compressed and can therefore only be read as a stream.
+     */
+    File getPlainFile() {
+        if (entryName == null && !file.getName().toLowerCase().endsWith(GZIP)) {
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * @return The file on disk that holds this document: the .gpx file itself, the .gpx.gz file, or the .zip archive.
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return An identifier of this document that stays the same regardless of the working directory.
+     */
+    String getId() {
+        final String path = file.getAbsolutePath();
+        return entryName == null ? path : path + "!/" + entryName;
+    }
+
+    /**
+     * Opens the document for reading. Every call returns a new stream, so the documents of the same archive can be
+     * read at the same time from different threads.
+     */
+    InputStream open() throws IOException {
+        if (entryName != null) {
+            final ZipFile zip = new ZipFile(file);
+            try {
+                final ZipEntry entry = zip.getEntry(entryName);
+                if (entry == null) {
+                    throw new FileNotFoundException(this.toString());
+                }
+                return new BufferedInputStream(new ArchiveEntryInputStream(zip, zip.getInputStream(entry)));
+            } catch (IOException | RuntimeException ex) {
+                zip.close();
+                throw ex;
+            }
+        }
+        final InputStream input = new FileInputStream(file);
+        if (file.getName().toLowerCase().endsWith(GZIP)) {
+            try {
+                return new BufferedInputStream(new GZIPInputStream(input));
+            } catch (IOException ex) {
+                input.close();
+                throw ex;
+            }
+        }
+        return new BufferedInputStream(input);
+    }
+
+    @Override
+    public String toString() {
+        return entryName == null ? file.toString() : file + "!/" + entryName;
+    }
+
+    /**
+     * A stream of an archive entry that closes the whole archive when it is closed.
+     */
+    private static final class ArchiveEntryInputStream extends FilterInputStream {
+        private final ZipFile zip;
+
+        ArchiveEntryInputStream(final ZipFile zip, final InputStream entry) {
+            super(entry);
+            this.zip = zip;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                zip.close();
+            }
+        }
+    }
+}
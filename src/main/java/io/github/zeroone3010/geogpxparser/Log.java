@@ -7,9 +7,10 @@ public final class Log {
     private final String user;
     private final LocalDateTime date;
     private final LogType type;
-    private final String text;
+    private final CharSequence text;
 
-    private Log(final long id, final String user, final LocalDateTime date, final LogType type, final String text) {
+    Log(final long id, final String user, final LocalDateTime date, final LogType type,
+        final CharSequence text) {
         this.id = id;
         this.user = user;
         this.date = date;
@@ -34,6 +35,13 @@ public final class Log {
     }
 
     public String getText() {
+        return Geocache.plainText(text);
+    }
+
+    /**
+     * @return The text as it is stored, which may be a view to a {@link TextArena}.
+     */
+    CharSequence getStoredText() {
         return text;
     }
 
@@ -47,6 +55,7 @@ public final class Log {
         private LocalDateTime date;
         private LogType type;
         private String text;
+        private TextArena textArena;
 
         public Builder id(long id) {
             this.id = id;
@@ -73,8 +82,18 @@ public final class Log {
             return this;
         }
 
+        /**
+         * Stores the text of the log in the given arena instead of the heap.
+         *
+         * @param textArena The arena to use, or null to keep the text in the heap.
+         */
+        Builder textArena(TextArena textArena) {
+            this.textArena = textArena;
+            return this;
+        }
+
         public Log build() {
-            return new Log(id, user, date, type, text);
+            return new Log(id, user, date, type, textArena == null ? text : textArena.store(text));
         }
     }
 }
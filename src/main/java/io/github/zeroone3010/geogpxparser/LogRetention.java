@@ -0,0 +1,102 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Decides which logs of each cache {@link GeoXMLReader} keeps. The logs that are left out are skipped while parsing,
+ * before any {@link Log} object or log text is created out of them. To keep the logs but not their texts, leave
+ * {@link GeocacheField#LOG_TEXTS} out of the {@link GeoXMLReader#fields(Set) fields} instead.
+ * <p>
+ * The rules can be combined, for example {@code LogRetention.all().byFinder("me").latest(5)}.
+ */
+public final class LogRetention {
+
+    private static final LogRetention ALL = new LogRetention(null, false, Integer.MAX_VALUE);
+
+    private final Set<String> finders;
+    private final boolean findsOnly;
+    private final int limit;
+
+    private LogRetention(final Set<String> finders, final boolean findsOnly, final int limit) {
+        this.finders = finders;
+        this.findsOnly = findsOnly;
+        this.limit = limit;
+    }
+
+    /**
+     * @return A policy that keeps every log.
+     */
+    public static LogRetention all() {
+        return ALL;
+    }
+
+    /**
+     * Keeps only the log that {@link Utility#findFoundLog(Geocache)} would return, which is all that the statistics
+     * tables need.
+     *
+     * @return A policy that keeps the first find of each cache.
+     */
+    public static LogRetention firstFind() {
+        return ALL.finds().latest(1);
+    }
+
+    /**
+     * @param finder The name of the finder whose logs to keep. Can be called several times to keep the logs of
+     *               several finders.
+     * @return A copy of this policy that also leaves out the logs by any other finders.
+     */
+    public LogRetention byFinder(final String finder) {
+        final Set<String> newFinders = finders == null ? new HashSet<>() : new HashSet<>(finders);
+        newFinders.add(finder);
+        return new LogRetention(Collections.unmodifiableSet(newFinders), findsOnly, limit);
+    }
+
+    /**
+     * @return A copy of this policy that also leaves out the logs that do not count as finds or do not have a date.
+     * @see LogType#countsAsFind()
+     */
+    public LogRetention finds() {
+        return new LogRetention(finders, true, limit);
+    }
+
+    /**
+     * Keeps at most the given number of logs of each cache, counting from the beginning of the file. The logs of a
+     * Groundspeak .gpx file are listed from the newest to the oldest, so these are the latest logs of the cache.
+     *
+     * @param count The maximum number of logs to keep for each cache.
+     * @return A copy of this policy that also limits the number of logs.
+     */
+    public LogRetention latest(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of logs cannot be negative, was " + count + ".");
+        }
+        return new LogRetention(finders, findsOnly, Math.min(count, limit));
+    }
+
+    /**
+     * Tells whether a log with the given details should be kept, provided that the limit has not been reached yet.
+     */
+    boolean accepts(final LogType type, final String finder, final LocalDateTime date) {
+        if (findsOnly && (type == null || !type.countsAsFind() || date == null)) {
+            return false;
+        }
+        return finders == null || finders.contains(finder);
+    }
+
+    /**
+     * @return The maximum number of logs to keep for each cache.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "LogRetention{finders=" + (finders == null ? "any" : new TreeSet<>(finders))
+                + ", findsOnly=" + findsOnly + ", limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The logs of a single cache, stored column by column in primitive arrays: the ids, the dates as epoch seconds, the
+ * types as ordinals and the finders as codes of a {@link SymbolTable}, or as plain strings when the cache was not
+ * built with a table. A {@link Log} object is created only when a
+ * log is read from the list, so the logs of millions of caches take a few dozen bytes each instead of a handful of
+ * objects each.
+ * <p>
+ * The list cannot be modified.
+ */
+final class LogStore extends AbstractList<Log> implements RandomAccess {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final byte NO_TYPE = -1;
+    private static final LogType[] TYPES = LogType.values();
+    private static final boolean[] COUNTS_AS_FIND = new boolean[TYPES.length];
+
+    static {
+        for (final LogType type : TYPES) {
+            COUNTS_AS_FIND[type.ordinal()] = type.countsAsFind();
+        }
+    }
+
+    static final LogStore EMPTY = new LogStore(new long[0], new long[0], null, new byte[0], new int[0], null, null,
+            null);
+
+    private final long[] ids;
+    private final long[] seconds;
+    // Null if none of the dates have fractions of a second:
+    private final int[] nanos;
+    private final byte[] types;
+    // The finders are either codes of the symbol table or, without a table, the names themselves:
+    private final int[] finders;
+    private final String[] finderNames;
+    // Null if none of the logs have a text. The texts are either strings or views to a TextArena:
+    private final CharSequence[] texts;
+    private final SymbolTable symbols;
+
+    private LogStore(final long[] ids, final long[] seconds, final int[] nanos, final byte[] types,
+                     final int[] finders, final String[] finderNames, final CharSequence[] texts,
+                     final SymbolTable symbols) {
+        this.ids = ids;
+        this.seconds = seconds;
+        this.nanos = nanos;
+        this.types = types;
+        this.finders = finders;
+        this.finderNames = finderNames;
+        this.texts = texts;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Stores the given logs.
+     *
+     * @param logs    The logs to store.
+     * @param symbols The table that gives the codes of the finders, or null to store the names of the finders.
+     */
+    static LogStore of(final List<Log> logs, final SymbolTable symbols) {
+        final int count = logs.size();
+        if (count == 0) {
+            return EMPTY;
+        }
+        final long[] ids = new long[count];
+        final long[] seconds = new long[count];
+        final byte[] types = new byte[count];
+        final int[] finders = symbols == null ? null : new int[count];
+        final String[] finderNames = symbols == null ? new String[count] : null;
+        int[] nanos = null;
+        CharSequence[] texts = null;
+        for (int i = 0; i < count; i++) {
+            final Log log = logs.get(i);
+            final LocalDateTime date = log.getDate();
+            ids[i] = log.getId();
+            seconds[i] = date == null ? NO_DATE : date.toEpochSecond(ZoneOffset.UTC);
+            if (date != null && date.getNano() != 0) {
+                if (nanos == null) {
+                    nanos = new int[count];
+                }
+                nanos[i] = date.getNano();
+            }
+            types[i] = log.getType() == null ? NO_TYPE : (byte) log.getType().ordinal();
+            if (symbols == null) {
+                finderNames[i] = log.getUser();
+            } else {
+                finders[i] = symbols.encode(log.getUser());
+            }
+            final CharSequence text = log.getStoredText();
+            if (text != null) {
+                if (texts == null) {
+                    texts = new CharSequence[count];
+                }
+                texts[i] = text;
+            }
+        }
+        return new LogStore(ids, seconds, nanos, types, finders, finderNames, texts, symbols);
+    }
+
+    @Override
+    public Log get(final int index) {
+        if (index < 0 || index >= ids.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not between 0 and " + ids.length + ".");
+        }
+        final String finder = finderNames != null ? finderNames[index] : symbols.decode(finders[index]);
+        return new Log(ids[index], finder, getDate(index), getType(index),
+                texts == null ? null : texts[index]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return The index of the first log that counts as a find and has a date, or -1 if there is no such log.
+     * @see Utility#findFoundLog(Geocache)
+     */
+    int findFirstFound() {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != NO_TYPE && COUNTS_AS_FIND[types[i]] && seconds[i] != NO_DATE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    LocalDateTime getDate(final int index) {
+        if (seconds[index] == NO_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds[index], nanos == null ? 0 : nanos[index], ZoneOffset.UTC);
+    }
+
+    /**
+     * @return The date of the given log without the time, or null if the log has no date.
+     */
+    LocalDate getLocalDate(final int index) {
+        return seconds[index] == NO_DATE ? null : LocalDate.ofEpochDay(Math.floorDiv(seconds[index], 86400L));
+    }
+
+    LogType getType(final int index) {
+        return types[index] == NO_TYPE ? null : TYPES[types[index]];
+    }
+}
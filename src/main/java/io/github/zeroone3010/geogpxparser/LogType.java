@@ -1,22 +1,11 @@
 package io.github.zeroone3010.geogpxparser;
 
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static java.util.function.Function.identity;
-
 public enum LogType {
 
     FOUND("Found it"), ATTENDED("Attended"), WEBCAM_PHOTO_TAKEN("Webcam Photo Taken"), DNF("Didn't find it"), OTHER(null);
     private final String gpxDescription;
-    private static final Map<String, LogType> gpxToType;
-
-    static {
-        gpxToType = Arrays.asList(LogType.values()).stream()
-                .collect(Collectors.toMap(LogType::getGpxDescription, identity()));
-    }
+    private static final DescriptionLookup<LogType> gpxToType =
+            new DescriptionLookup<>(values(), LogType::getGpxDescription, OTHER);
 
     LogType(final String gpxText) {
         this.gpxDescription = gpxText;
@@ -26,8 +15,8 @@ public enum LogType {
         return this.gpxDescription;
     }
 
-    public static LogType getByGpxDescription(final String description) {
-        return Optional.ofNullable(gpxToType.get(description)).orElse(OTHER);
+    public static LogType getByGpxDescription(final CharSequence description) {
+        return gpxToType.find(description);
     }
 
     public boolean countsAsFind() {
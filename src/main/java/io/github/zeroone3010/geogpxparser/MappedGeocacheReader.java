@@ -0,0 +1,348 @@
+package io.github.zeroone3010.geogpxparser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads geocaches from a Groundspeak .gpx file by memory-mapping the file, splitting it into the byte ranges of the
+ * individual {@code <wpt>} elements, and decoding those ranges in parallel in the common fork-join pool. Each fork-join
+ * task decodes its consecutive waypoints with a single {@link StaxGeocacheReader}, so the caches are identical to the
+ * ones the other engines produce.
+ * <p>
+ * The waypoint boundaries are found with a plain byte scan, which assumes that the text {@code <wpt} does not appear
+ * inside comments or CDATA sections. This holds for the files Groundspeak produces, where the HTML of the cache
+ * descriptions and logs is always escaped.
+ * <p>
+ * If a waypoint cannot be parsed, the caches before it are returned first and the error is thrown after them, the same
+ * way as with the streaming engines.
+ *
+ * @see GeoXMLReader.Engine#MAPPED
+ */
+final class MappedGeocacheReader implements GeocacheSource {
+
+    /**
+     * The size of a single mapped segment. A file larger than this is mapped in several segments.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    /**
+     * The number of waypoints one fork-join task decodes without splitting the work further.
+     */
+    private static final int WAYPOINTS_PER_TASK = 64;
+
+    private static final byte[] WPT_START = "<wpt".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WPT_END = "</wpt".getBytes(StandardCharsets.US_ASCII);
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z0-9._-]+)[\"']");
+
+    private static final byte[] SLICE_START = "<gpx>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SLICE_END = "</gpx>".getBytes(StandardCharsets.US_ASCII);
+
+    private final Geocache[] caches;
+    private final int limit;
+    private Exception failure;
+    private int index = 0;
+
+    MappedGeocacheReader(final File file, final DecodingContext context) throws IOException {
+        final MappedByteBuffer[] segments;
+        final long size;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+        }
+        final MappedContent content = new MappedContent(segments, size);
+        final long[] ranges = findWaypoints(content);
+        this.caches = new Geocache[ranges.length / 2];
+
+        final DecodeTask task = new DecodeTask(content, readEncoding(content), context, ranges, caches, 0,
+                caches.length);
+        ForkJoinPool.commonPool().invoke(task);
+        this.failure = task.failure;
+        this.limit = task.failure != null ? task.failedAt : caches.length;
+        Arrays.fill(caches, limit, caches.length, null);
+    }
+
+    /**
+     * Finds the byte ranges of all the {@code <wpt>} elements of the file.
+     *
+     * @return The ranges as consecutive pairs of inclusive start and exclusive end offsets.
+     */
+    private static long[] findWaypoints(final MappedContent content) {
+        long[] ranges = new long[1024];
+        int count = 0;
+        long position = 0;
+        while ((position = content.indexOf(WPT_START, position)) >= 0) {
+            final long tagEnd = content.endOfTag(position + WPT_START.length);
+            if (tagEnd < 0) {
+                break;
+            }
+            final long start = position;
+            final long end;
+            if (content.get(tagEnd - 2) == '/') {
+                end = tagEnd;
+            } else {
+                final long closing = content.indexOf(WPT_END, tagEnd);
+                if (closing < 0) {
+                    break;
+                }
+                end = content.endOfTag(closing + WPT_END.length);
+            }
+            if (end < 0) {
+                break;
+            }
+            if (count + 2 > ranges.length) {
+                final long[] larger = new long[ranges.length * 2];
+                System.arraycopy(ranges, 0, larger, 0, count);
+                ranges = larger;
+            }
+            ranges[count++] = start;
+            ranges[count++] = end;
+            position = end;
+        }
+        final long[] result = new long[count];
+        System.arraycopy(ranges, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Reads the encoding from the XML declaration. The waypoint ranges do not have a declaration of their own, so the
+     * encoding of the whole file has to be passed on to the parser.
+     */
+    private static String readEncoding(final MappedContent content) {
+        final int length = (int) Math.min(200, content.size);
+        final byte[] prolog = new byte[length];
+        for (int i = 0; i < length; i++) {
+            prolog[i] = content.get(i);
+        }
+        final String declaration = new String(prolog, StandardCharsets.ISO_8859_1);
+        if (declaration.startsWith("<?xml")) {
+            final Matcher matcher = ENCODING.matcher(declaration.substring(0, Math.max(declaration.indexOf("?>"), 0)));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public Geocache next() throws XMLStreamException, IOException {
+        while (index < limit) {
+            final Geocache cache = caches[index];
+            caches[index++] = null;
+            if (cache != null) {
+                return cache;
+            }
+        }
+        if (failure != null) {
+            final Exception ex = failure;
+            failure = null;
+            if (ex instanceof XMLStreamException) {
+                throw (XMLStreamException) ex;
+            }
+            if (ex instanceof IOException) {
+                throw (IOException) ex;
+            }
+            throw (RuntimeException) ex;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // The mapped segments are released by the garbage collector.
+    }
+
+    /**
+     * Decodes a slice of the waypoints, splitting the slice in halves until it is small enough. The caches of a slice
+     * are stored from the start of its part of the array onwards, leaving the rest of the part as nulls.
+     */
+    @SuppressWarnings("serial") // The tasks are never serialized.
+    private static final class DecodeTask extends RecursiveAction {
+        private final MappedContent content;
+        private final String encoding;
+        private final DecodingContext context;
+        private final long[] ranges;
+        private final Geocache[] caches;
+        private final int from;
+        private final int to;
+        // The first error of the slice: an XMLStreamException, an IOException or an IllegalArgumentException, such as
+        // a NumberFormatException from a malformed coordinate.
+        private Exception failure;
+        private int failedAt;
+
+        DecodeTask(final MappedContent content, final String encoding, final DecodingContext context,
+                   final long[] ranges, final Geocache[] caches, final int from, final int to) {
+            this.content = content;
+            this.encoding = encoding;
+            this.context = context;
+            this.ranges = ranges;
+            this.caches = caches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (from == to) {
+                return;
+            }
+            if (to - from <= WAYPOINTS_PER_TASK) {
+                decode();
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            final DecodeTask left = new DecodeTask(content, encoding, context, ranges, caches, from, middle);
+            final DecodeTask right = new DecodeTask(content, encoding, context, ranges, caches, middle, to);
+            invokeAll(left, right);
+            final DecodeTask failed = left.failure != null ? left : right;
+            failure = failed.failure;
+            failedAt = failed.failedAt;
+        }
+
+        /**
+         * Decodes the whole slice with one reader. The waypoints are wrapped in a root element of their own, so that
+         * they form a single document.
+         */
+        private void decode() {
+            final InputStream input = new SequenceInputStream(new SequenceInputStream(
+                    new ByteArrayInputStream(SLICE_START), content.stream(ranges[2 * from], ranges[2 * to - 1])),
+                    new ByteArrayInputStream(SLICE_END));
+            int i = from;
+            try (final StaxGeocacheReader reader = new StaxGeocacheReader(input, encoding, context)) {
+                for (Geocache cache = reader.next(); cache != null; cache = reader.next()) {
+                    caches[i++] = cache;
+                }
+            } catch (XMLStreamException | IOException | IllegalArgumentException ex) {
+                failure = ex;
+                failedAt = i;
+            }
+        }
+    }
+
+    /**
+     * The mapped segments of a file, addressed as one contiguous sequence of bytes.
+     */
+    private static final class MappedContent {
+        private final MappedByteBuffer[] segments;
+        private final long size;
+
+        MappedContent(final MappedByteBuffer[] segments, final long size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        byte get(final long position) {
+            return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+        }
+
+        /**
+         * Finds the next occurrence of the given tag name that is followed by whitespace, {@code >} or {@code /}. The
+         * first byte of the tag is searched for within each segment directly, and only its occurrences are compared
+         * with the rest of the tag.
+         */
+        long indexOf(final byte[] tag, final long from) {
+            final long last = size - tag.length;
+            final byte first = tag[0];
+            for (int s = (int) (from >>> SEGMENT_SHIFT); s < segments.length; s++) {
+                final MappedByteBuffer segment = segments[s];
+                final long base = (long) s << SEGMENT_SHIFT;
+                final int end = (int) Math.min(segment.limit(), last - base);
+                for (int i = (int) Math.max(from - base, 0); i < end; i++) {
+                    if (segment.get(i) == first && matches(segment, tag, i, base)) {
+                        return base + i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Compares the rest of the tag at the given offset of a segment. A tag that continues into the next segment is
+         * compared byte by byte across the boundary.
+         */
+        private boolean matches(final MappedByteBuffer segment, final byte[] tag, final int offset, final long base) {
+            final boolean inside = offset + tag.length < segment.limit();
+            for (int i = 1; i < tag.length; i++) {
+                if ((inside ? segment.get(offset + i) : get(base + offset + i)) != tag[i]) {
+                    return false;
+                }
+            }
+            final byte following = inside ? segment.get(offset + tag.length) : get(base + offset + tag.length);
+            return following == '>' || following == '/' || following <= ' ';
+        }
+
+        /**
+         * Finds the end of the tag that continues from the given position, skipping any quoted attribute values.
+         *
+         * @return The position right after the closing {@code >}, or -1 if the tag is not closed.
+         */
+        long endOfTag(final long from) {
+            byte quote = 0;
+            for (long position = from; position < size; position++) {
+                final byte b = get(position);
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    return position + 1;
+                }
+            }
+            return -1;
+        }
+
+        InputStream stream(final long start, final long end) {
+            return new RangeInputStream(start, end);
+        }
+
+        private final class RangeInputStream extends InputStream {
+            private long position;
+            private final long end;
+
+            RangeInputStream(final long start, final long end) {
+                this.position = start;
+                this.end = end;
+            }
+
+            @Override
+            public int read() {
+                return position < end ? get(position++) & 0xFF : -1;
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset, final int length) {
+                if (position >= end) {
+                    return -1;
+                }
+                final MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+                final int segmentOffset = (int) (position & (SEGMENT_SIZE - 1));
+                final int count = (int) Math.min(Math.min(length, end - position), segment.limit() - segmentOffset);
+                final ByteBuffer view = segment.duplicate();
+                view.position(segmentOffset);
+                view.get(buffer, offset, count);
+                position += count;
+                return count;
+            }
+        }
+    }
+}
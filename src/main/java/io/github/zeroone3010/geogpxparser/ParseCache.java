@@ -0,0 +1,339 @@
+package io.github.zeroone3010.geogpxparser;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps the caches decoded from each .gpx file in a directory on disk, so that a file that has not changed since the
+ * previous run does not need to be parsed again. A stored file is used when the path, size and modification time of
+ * the .gpx file are still the same, and when the caches were decoded with the same {@link GeoXMLReader#fields(java.util.Set) fields}
+ * and {@link GeoXMLReader#logRetention(LogRetention) log retention}. With {@link #checksums(boolean) checksums}
+ * enabled, the content of the file is compared instead of the modification time.
+ * <p>
+ * The caches are stored in the compact binary form of {@link GeocacheCodec}. A file is only stored once all of its
+ * caches have been read without errors, so an interrupted or failed parse never leaves a partial result behind.
+ */
+public final class ParseCache {
+
+    private static final int MAGIC = 0x47475043; // "GGPC"
+    private static final String SUFFIX = ".bin";
+    private static final String TEMPORARY_PREFIX = "parse";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MORE = 1;
+    private static final int END = 0;
+
+    private final File directory;
+    private boolean checksums = false;
+
+    /**
+     * @param directory The directory to keep the stored caches in. It is created when needed.
+     */
+    public ParseCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets whether the content of the .gpx files is checked with a SHA-256 checksum instead of trusting the
+     * modification time. This catches files that have been replaced with ones of the same size and time stamp, at
+     * the cost of reading each file once more. Disabled by default.
+     *
+     * @param checksums True to compare the checksums.
+     * @return This parse cache.
+     */
+    public ParseCache checksums(final boolean checksums) {
+        this.checksums = checksums;
+        return this;
+    }
+
+    /**
+     * Removes all the stored caches, and any temporary files left behind by storing caches that was interrupted.
+     */
+    public void clear() {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX)
+                || (name.startsWith(TEMPORARY_PREFIX) && name.endsWith(TEMPORARY_SUFFIX)));
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (!file.delete()) {
+                System.err.println("Could not delete '" + file + "'!");
+            }
+        }
+    }
+
+    /**
+     * Opens the stored caches of the given document.
+     *
+     * @return The stored caches, or null if they are missing or out of date.
+     */
+    GeocacheSource open(final GpxInput input, final DecodingContext context) {
+        final File stored = storedFile(input);
+        if (!stored.isFile()) {
+            return null;
+        }
+        DataInputStream data = null;
+        try {
+            data = new DataInputStream(new BufferedInputStream(new FileInputStream(stored)));
+            final Header header = Header.read(data);
+            if (header.matches(Header.describe(input, context, checksums ? checksum(input.getFile()) : null))) {
+                return new StoredSource(stored, data, new GeocacheCodec.Decoder(data, context));
+            }
+        } catch (IOException exception) {
+            System.err.println("Discarding the stored caches of '" + input + "'!");
+            exception.printStackTrace();
+        }
+        closeQuietly(data);
+        return null;
+    }
+
+    /**
+     * Wraps the given source so that the caches it reads are stored for the next time. Errors in storing the caches
+     * are reported, and they do not affect the reading of the caches.
+     */
+    GeocacheSource record(final GpxInput input, final DecodingContext context, final GeocacheSource source) {
+        try {
+            // The details are taken before parsing, so that a file that changes during the parsing is parsed again
+            // the next time:
+            final Header header = Header.describe(input, context, checksums ? checksum(input.getFile()) : "");
+            Files.createDirectories(directory.toPath());
+            final Path temporary = Files.createTempFile(directory.toPath(), TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+            final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)));
+            header.write(data);
+            return new RecordingSource(source, data, temporary, storedFile(input).toPath());
+        } catch (IOException exception) {
+            System.err.println("Could not store the caches of '" + input + "'!");
+            exception.printStackTrace();
+            return source;
+        }
+    }
+
+    private File storedFile(final GpxInput input) {
+        return new File(directory, hex(digest("SHA-1").digest(input.getId().getBytes(StandardCharsets.UTF_8))) + SUFFIX);
+    }
+
+    private static String checksum(final File file) throws IOException {
+        final MessageDigest digest = digest("SHA-256");
+        try (final InputStream input = new FileInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            for (int count = input.read(buffer); count >= 0; count = input.read(buffer)) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-1 and SHA-256:
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing more can be done about it.
+            }
+        }
+    }
+
+    /**
+     * The details of a .gpx file that decide whether its stored caches are still valid.
+     */
+    private static final class Header {
+        private final String id;
+        private final long size;
+        private final long modified;
+        private final String settings;
+        private final String checksum;
+
+        private Header(final String id, final long size, final long modified, final String settings,
+                       final String checksum) {
+            this.id = id;
+            this.size = size;
+            this.modified = modified;
+            this.settings = settings;
+            this.checksum = checksum;
+        }
+
+        /**
+         * @param checksum The checksum of the file, or null if the checksums are not compared.
+         */
+        static Header describe(final GpxInput input, final DecodingContext context, final String checksum)
+                throws FileNotFoundException {
+            final File file = input.getFile();
+            if (!file.isFile()) {
+                throw new FileNotFoundException(file.toString());
+            }
+            return new Header(input.getId(), file.length(), file.lastModified(), context.describeSettings(), checksum);
+        }
+
+        static Header read(final DataInputStream data) throws IOException {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a parse cache file.");
+            }
+            if (data.readInt() != GeocacheCodec.VERSION) {
+                // An older format is simply parsed again:
+                return new Header("", -1, -1, "", "");
+            }
+            return new Header(data.readUTF(), data.readLong(), data.readLong(), data.readUTF(), data.readUTF());
+        }
+
+        void write(final DataOutputStream data) throws IOException {
+            data.writeInt(MAGIC);
+            data.writeInt(GeocacheCodec.VERSION);
+            data.writeUTF(id);
+            data.writeLong(size);
+            data.writeLong(modified);
+            data.writeUTF(settings);
+            data.writeUTF(checksum);
+        }
+
+        /**
+         * @param current The details of the file as it is now. If it has a checksum, the checksum is compared
+         *                instead of the modification time.
+         */
+        boolean matches(final Header current) {
+            if (!id.equals(current.id) || size != current.size || !settings.equals(current.settings)) {
+                return false;
+            }
+            return current.checksum == null ? modified == current.modified : checksum.equals(current.checksum);
+        }
+    }
+
+    /**
+     * Reads the caches of a stored file.
+     */
+    private static final class StoredSource implements GeocacheSource {
+        private final File file;
+        private final DataInputStream data;
+        private final GeocacheCodec.Decoder decoder;
+
+        StoredSource(final File file, final DataInputStream data, final GeocacheCodec.Decoder decoder) {
+            this.file = file;
+            this.data = data;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public Geocache next() throws IOException {
+            try {
+                return data.readByte() == MORE ? decoder.read() : null;
+            } catch (IOException | RuntimeException exception) {
+                // A damaged file is removed, so that the .gpx file gets parsed again the next time:
+                closeQuietly(data);
+                Files.deleteIfExists(file.toPath());
+                throw exception instanceof IOException ? (IOException) exception : new IOException(exception);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    /**
+     * Stores the caches of another source while they are being read, and moves the stored file into its place once
+     * all the caches have been read.
+     */
+    private static final class RecordingSource implements GeocacheSource {
+        private final GeocacheSource source;
+        private final Path temporary;
+        private final Path target;
+        private DataOutputStream data;
+        private GeocacheCodec.Encoder encoder;
+
+        RecordingSource(final GeocacheSource source, final DataOutputStream data, final Path temporary,
+                        final Path target) {
+            this.source = source;
+            this.data = data;
+            this.encoder = new GeocacheCodec.Encoder(data);
+            this.temporary = temporary;
+            this.target = target;
+        }
+
+        @Override
+        public Geocache next() throws XMLStreamException, IOException {
+            final Geocache cache = source.next();
+            if (data != null) {
+                try {
+                    if (cache != null) {
+                        data.writeByte(MORE);
+                        encoder.write(cache);
+                    } else {
+                        data.writeByte(END);
+                        data.close();
+                        data = null;
+                        move();
+                    }
+                } catch (IOException exception) {
+                    System.err.println("Could not store the caches in '" + target + "'!");
+                    exception.printStackTrace();
+                    discard();
+                }
+            }
+            return cache;
+        }
+
+        private void move() throws IOException {
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private void discard() {
+            closeQuietly(data);
+            data = null;
+            encoder = null;
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // A leftover temporary file does no harm.
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                if (data != null) {
+                    // The source was not read to its end, so the caches are not complete:
+                    discard();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measurements of a single {@link GeoXMLReader#parse(java.util.function.Consumer) parse}: how long each file took,
+ * how much was decoded from it, and how much heap the parsing needed at most.
+ */
+public final class ParseMetrics {
+
+    private final List<FileMetrics> files;
+    private final long wallNanos;
+    private final long peakHeapBytes;
+
+    ParseMetrics(final List<FileMetrics> files, final long wallNanos, final long peakHeapBytes) {
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+        this.wallNanos = wallNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    /**
+     * @return The metrics of each file, in the order the files were handed over in.
+     */
+    public List<FileMetrics> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return The time from the start of the parsing until the last cache had been handed over.
+     */
+    public Duration getWallTime() {
+        return Duration.ofNanos(wallNanos);
+    }
+
+    /**
+     * @return The highest heap usage during the parsing, or -1 if it is not known. This is the sum of the peaks of
+     * the heap memory pools, so it may be slightly more than the actual peak.
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getBytes() {
+        return files.stream().mapToLong(FileMetrics::getBytes).sum();
+    }
+
+    public long getCaches() {
+        return files.stream().mapToLong(FileMetrics::getCaches).sum();
+    }
+
+    public long getLogs() {
+        return files.stream().mapToLong(FileMetrics::getLogs).sum();
+    }
+
+    public long getFailedTimestamps() {
+        return files.stream().mapToLong(FileMetrics::getFailedTimestamps).sum();
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(getBytes(), wallNanos);
+    }
+
+    public double getCachesPerSecond() {
+        return perSecond(getCaches(), wallNanos);
+    }
+
+    private static double perSecond(final long count, final long nanos) {
+        return nanos <= 0 ? 0 : count * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * @return The metrics as a JSON object.
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"wallTimeMillis\": ").append(millis(wallNanos)).append(",\n");
+        json.append("  \"bytes\": ").append(getBytes()).append(",\n");
+        json.append("  \"caches\": ").append(getCaches()).append(",\n");
+        json.append("  \"logs\": ").append(getLogs()).append(",\n");
+        json.append("  \"failedTimestamps\": ").append(getFailedTimestamps()).append(",\n");
+        json.append("  \"bytesPerSecond\": ").append(decimal(getBytesPerSecond())).append(",\n");
+        json.append("  \"cachesPerSecond\": ").append(decimal(getCachesPerSecond())).append(",\n");
+        json.append("  \"peakHeapBytes\": ").append(peakHeapBytes).append(",\n");
+        json.append("  \"files\": [");
+        for (int i = 0; i < files.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    ").append(files.get(i).toJson());
+        }
+        json.append(files.isEmpty() ? "]\n" : "\n  ]\n");
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Writes the metrics into the given file as JSON.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeJson(final File file) throws IOException {
+        Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d caches and %d logs from %d files in %d ms (%.0f caches/s, %.1f MB/s)",
+                getCaches(), getLogs(), files.size(), getWallTime().toMillis(), getCachesPerSecond(),
+                getBytesPerSecond() / (1024 * 1024));
+    }
+
+    /**
+     * Resets the peak usage of the heap memory pools, so that {@link #peakHeapBytes()} measures from this point on.
+     */
+    static void resetPeakHeapUsage() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    static long peakHeapBytes() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak == 0 ? -1 : peak;
+    }
+
+    private static String millis(final long nanos) {
+        return decimal(nanos / 1_000_000d);
+    }
+
+    private static String decimal(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(final String text) {
+        final StringBuilder sb = new StringBuilder("\"");
+        for (final char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * The measurements of a single file.
+     */
+    public static final class FileMetrics {
+        private final String file;
+        private final boolean fromParseCache;
+        private final boolean failed;
+        private final long bytes;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long caches;
+        private final long logs;
+        private final long failedTimestamps;
+
+        FileMetrics(final String file, final boolean fromParseCache, final boolean failed, final long bytes,
+                    final long wallNanos, final long cpuNanos, final long caches, final long logs,
+                    final long failedTimestamps) {
+            this.file = file;
+            this.fromParseCache = fromParseCache;
+            this.failed = failed;
+            this.bytes = bytes;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.caches = caches;
+            this.logs = logs;
+            this.failedTimestamps = failedTimestamps;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return True if the caches were loaded from a {@link ParseCache} instead of being parsed.
+         */
+        public boolean isFromParseCache() {
+            return fromParseCache;
+        }
+
+        /**
+         * @return True if reading or parsing the file failed. The caches read before the failure are still counted.
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+
+        /**
+         * @return The number of XML bytes parsed, after decompression. Zero if the caches came from a parse cache.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return The time from opening the file until its last cache had been handed over.
+         */
+        public Duration getWallTime() {
+            return Duration.ofNanos(wallNanos);
+        }
+
+        /**
+         * @return The CPU time of the thread that parsed the file, or null if it cannot be measured. The reader
+         * threads of the pipelined mode and the fork-join workers of the mapped engine are not included.
+         */
+        public Duration getCpuTime() {
+            return cpuNanos < 0 ? null : Duration.ofNanos(cpuNanos);
+        }
+
+        public long getCaches() {
+            return caches;
+        }
+
+        public long getLogs() {
+            return logs;
+        }
+
+        /**
+         * @return The number of hidden dates and log dates that could not be parsed and were left out.
+         */
+        public long getFailedTimestamps() {
+            return failedTimestamps;
+        }
+
+        String toJson() {
+            return "{\"file\": " + quote(file)
+                    + ", \"fromParseCache\": " + fromParseCache
+                    + ", \"failed\": " + failed
+                    + ", \"bytes\": " + bytes
+                    + ", \"wallTimeMillis\": " + millis(wallNanos)
+                    + ", \"cpuTimeMillis\": " + (cpuNanos < 0 ? "null" : millis(cpuNanos))
+                    + ", \"caches\": " + caches
+                    + ", \"logs\": " + logs
+                    + ", \"failedTimestamps\": " + failedTimestamps + "}";
+        }
+    }
+}
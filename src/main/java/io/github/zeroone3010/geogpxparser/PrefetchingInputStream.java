@@ -0,0 +1,117 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads and decompresses a document on a virtual thread of its own, ahead of the thread that parses it. The chunks
+ * read so far are handed over through a bounded queue, so the reading pauses whenever the parser falls behind, and
+ * the parser only waits for the disk when the queue has run empty.
+ */
+final class PrefetchingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_AHEAD = 16;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+    private final Thread reader;
+    private final String name;
+    private volatile Throwable failure;
+    private byte[] chunk;
+    private int position;
+    private boolean finished = false;
+
+    PrefetchingInputStream(final GpxInput input) {
+        this.name = input.toString();
+        this.reader = Thread.ofVirtual().name("gpx-reader-" + input).start(() -> readAll(input));
+    }
+
+    private void readAll(final GpxInput input) {
+        boolean closed = false;
+        try (final InputStream in = input.open()) {
+            int count;
+            do {
+                final byte[] buffer = new byte[CHUNK_SIZE];
+                count = in.readNBytes(buffer, 0, CHUNK_SIZE);
+                if (count > 0) {
+                    chunks.put(count == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, count));
+                }
+            } while (count == CHUNK_SIZE);
+        } catch (InterruptedException ex) {
+            // The stream was closed before it was read to its end, so nobody is waiting for the end.
+            closed = true;
+        } catch (Throwable ex) {
+            failure = ex;
+        } finally {
+            if (!closed) {
+                try {
+                    chunks.put(END);
+                } catch (InterruptedException ex) {
+                    // The stream was closed before it was read to its end.
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes sure that there are unread bytes in the current chunk, waiting for the reader thread if necessary.
+     *
+     * @return False if the end of the document has been reached.
+     */
+    private boolean fill() throws IOException {
+        while (chunk == null || position == chunk.length) {
+            if (finished) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the file to be read.");
+            }
+            position = 0;
+            if (chunk == END) {
+                finished = true;
+                chunk = null;
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                } else if (failure != null) {
+                    throw new IOException("Could not read '" + name + "'!", failure);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? chunk[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        chunk = null;
+        reader.interrupt();
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.zeroone3010.geogpxparser;
+
+/**
+ * Decodes the numbers and flags of .gpx files, such as the coordinates, the ratings and the log ids, straight from
+ * the characters without creating any strings or boxed values.
+ * <p>
+ * The plain decimal numbers the files actually contain are decoded by hand. The results are identical to those of
+ * {@link Double#parseDouble(String)} and {@link Float#parseFloat(String)}: the digits are first collected into an
+ * exact integer, which is then divided by an exact power of ten, and IEEE 754 rounds that division correctly.
+ * Anything else, such as an exponent or too many digits, falls back to the methods of the JDK.
+ */
+final class ScalarDecoder {
+
+    /**
+     * Powers of ten that a double represents exactly.
+     */
+    private static final double[] DOUBLE_POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Powers of ten that a float represents exactly.
+     */
+    private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    /**
+     * The largest integers that a double and a float represent exactly.
+     */
+    private static final long DOUBLE_EXACT = 1L << 53;
+    private static final long FLOAT_EXACT = 1L << 24;
+
+    private ScalarDecoder() { /* prevent */}
+
+    static double parseDouble(final CharSequence text) {
+        final long digits = digits(text, DOUBLE_EXACT);
+        final int scale = scale(text);
+        if (digits >= 0 && scale < DOUBLE_POWERS.length) {
+            final double value = digits / DOUBLE_POWERS[scale];
+            return text.charAt(0) == '-' ? -value : value;
+        }
+        return Double.parseDouble(text.toString());
+    }
+
+    static float parseFloat(final CharSequence text) {
+        final long digits = digits(text, FLOAT_EXACT);
+        final int scale = scale(text);
+        if (digits >= 0 && scale < FLOAT_POWERS.length) {
+            final float value = digits / FLOAT_POWERS[scale];
+            return text.charAt(0) == '-' ? -value : value;
+        }
+        return Float.parseFloat(text.toString());
+    }
+
+    static long parseLong(final CharSequence text) {
+        final int length = text.length();
+        if (length > 0 && length < 19) {
+            long value = 0;
+            int i = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+            if (i == length) {
+                throw new NumberFormatException("For input string: \"" + text + "\"");
+            }
+            for (; i < length; i++) {
+                final char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("For input string: \"" + text + "\"");
+                }
+                value = value * 10 + (c - '0');
+            }
+            return text.charAt(0) == '-' ? -value : value;
+        }
+        return Long.parseLong(text.toString());
+    }
+
+    /**
+     * @return True if the text is "true" in any case, like {@link Boolean#parseBoolean(String)} does.
+     */
+    static boolean parseBoolean(final CharSequence text) {
+        if (text.length() != 4) {
+            return false;
+        }
+        return (text.charAt(0) | 0x20) == 't' && (text.charAt(1) | 0x20) == 'r' && (text.charAt(2) | 0x20) == 'u'
+                && (text.charAt(3) | 0x20) == 'e';
+    }
+
+    /**
+     * Collects the digits of a plain decimal number, such as {@code -12.345}, into an integer, ignoring the sign and
+     * the decimal point.
+     *
+     * @return The digits, or -1 if the text is not a plain decimal number or if the digits reach the given limit.
+     */
+    private static long digits(final CharSequence text, final long limit) {
+        final int length = text.length();
+        int i = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (i == length) {
+            return -1;
+        }
+        boolean point = false;
+        boolean digit = false;
+        long value = 0;
+        for (; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value >= limit) {
+                    return -1;
+                }
+                digit = true;
+            } else {
+                return -1;
+            }
+        }
+        return digit ? value : -1;
+    }
+
+    /**
+     * @return The number of digits after the decimal point.
+     */
+    private static int scale(final CharSequence text) {
+        for (int i = text.length() - 1; i >= 0; i--) {
+            if (text.charAt(i) == '.') {
+                return text.length() - 1 - i;
+            }
+        }
+        return 0;
+    }
+}
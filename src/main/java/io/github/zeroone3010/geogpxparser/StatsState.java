@@ -0,0 +1,171 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The caches that the statistics tables are made of, kept between runs so that the tables can be updated with the
+ * caches of a new .gpx file without reading the earlier files again.
+ * <p>
+ * Only the parts of each cache that the tables use are kept: the details of the cache itself and its first find,
+ * without any descriptions, attributes or other logs. The caches are keyed by their gc codes, so a cache that is
+ * imported again replaces its earlier version, keeping its place in the tables. The state is saved in the compact
+ * binary form of {@link GeocacheCodec}.
+ */
+public final class StatsState {
+
+    private static final int MAGIC = 0x47475354; // "GGST"
+
+    /**
+     * The parts of the caches that the state keeps.
+     */
+    static final EnumSet<GeocacheField> FIELDS = EnumSet.of(GeocacheField.GC_CODE, GeocacheField.NAME,
+            GeocacheField.COORDINATES, GeocacheField.HIDDEN, GeocacheField.TYPE, GeocacheField.SIZE,
+            GeocacheField.DIFFICULTY, GeocacheField.TERRAIN, GeocacheField.OWNER, GeocacheField.COUNTRY,
+            GeocacheField.LOGS);
+
+    private final Map<String, Geocache> caches = new LinkedHashMap<>();
+    private final SymbolTable symbols = new SymbolTable();
+
+    /**
+     * Loads the state saved into the given file.
+     *
+     * @param file The file to load.
+     * @return The state in the file, or an empty state if the file does not exist.
+     * @throws IOException If the file cannot be read or if it is not a state file of this version.
+     */
+    public static StatsState load(final File file) throws IOException {
+        final StatsState state = new StatsState();
+        if (!file.isFile()) {
+            return state;
+        }
+        try (final DataInputStream data = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file.toPath())))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a statistics state file.");
+            }
+            if (data.readInt() != GeocacheCodec.VERSION) {
+                throw new IOException("The statistics state file is of an older version. Remove it to start over.");
+            }
+            final GeocacheCodec.Decoder decoder = new GeocacheCodec.Decoder(data, new DecodingContext(FIELDS,
+                    LogRetention.firstFind(), state.symbols, null));
+            final int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                final Geocache cache = decoder.read();
+                state.caches.put(cache.getGcCode(), cache);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Saves the state into the given file. The file is replaced only once the whole state has been written.
+     *
+     * @param file The file to save to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(final File file) throws IOException {
+        final Path target = file.getAbsoluteFile().toPath();
+        final Path temporary = Files.createTempFile(target.getParent(), "stats", ".tmp");
+        try {
+            try (final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)))) {
+                data.writeInt(MAGIC);
+                data.writeInt(GeocacheCodec.VERSION);
+                data.writeInt(caches.size());
+                final GeocacheCodec.Encoder encoder = new GeocacheCodec.Encoder(data);
+                for (final Geocache cache : caches.values()) {
+                    encoder.write(cache);
+                }
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Adds the given caches to the state. A cache whose gc code is already in the state replaces the earlier one.
+     * Caches without a gc code are ignored, since they could never be replaced or removed.
+     *
+     * @param newCaches The caches to add.
+     */
+    public void update(final Collection<Geocache> newCaches) {
+        for (final Geocache cache : newCaches) {
+            if (cache.getGcCode() != null) {
+                caches.put(cache.getGcCode(), strip(cache));
+            }
+        }
+    }
+
+    /**
+     * Removes a cache from the state.
+     *
+     * @param gcCode The gc code of the cache.
+     * @return True if the cache was in the state.
+     */
+    public boolean remove(final String gcCode) {
+        return caches.remove(gcCode) != null;
+    }
+
+    /**
+     * @return The number of caches in the state.
+     */
+    public int size() {
+        return caches.size();
+    }
+
+    /**
+     * @return The caches of the state, in the order in which they were first added. The tables are made out of these
+     * with {@link io.github.zeroone3010.geogpxparser.cachelistparsers.CacheStatsEngine}.
+     */
+    public List<Geocache> getCaches() {
+        return new ArrayList<>(caches.values());
+    }
+
+    /**
+     * @return A copy of the cache with only the parts that the state keeps.
+     */
+    private Geocache strip(final Geocache cache) {
+        final Geocache.Builder builder = Geocache.builder().symbols(symbols)
+                .gcCode(cache.getGcCode())
+                .name(cache.getName())
+                .latitude(cache.getLatitude())
+                .longitude(cache.getLongitude())
+                .hidden(cache.getHidden())
+                .type(cache.getType())
+                .size(cache.getSize())
+                .difficulty(cache.getDifficulty())
+                .terrain(cache.getTerrain())
+                .owner(symbols.intern(cache.getOwner()))
+                .country(symbols.intern(cache.getCountry()));
+        final Log found = Utility.findFoundLog(cache);
+        if (found != null) {
+            builder.addLog(Log.builder()
+                    .id(found.getId())
+                    .user(found.getUser())
+                    .date(found.getDate())
+                    .type(found.getType())
+                    .build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,384 @@
+package io.github.zeroone3010.geogpxparser;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Reads geocaches from a Groundspeak .gpx stream one waypoint at a time. Only
+ * the waypoint currently being decoded is held in memory, so the heap usage
+ * does not depend on the size of the file.
+ *
+ * @see GeoXMLReader.Engine#STAX
+ */
+final class StaxGeocacheReader implements GeocacheSource {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final InputStream input;
+    private final XMLStreamReader xml;
+    private final DecodingContext context;
+    private final CharSlice scalar = new CharSlice();
+
+    StaxGeocacheReader(final InputStream input, final DecodingContext context) throws XMLStreamException {
+        this.input = input;
+        this.xml = FACTORY.createXMLStreamReader(input);
+        this.context = context;
+    }
+
+    /**
+     * Creates a reader for a stream that has no XML declaration of its own, such as a single waypoint cut out of a
+     * larger file.
+     */
+    StaxGeocacheReader(final InputStream input, final String encoding, final DecodingContext context)
+            throws XMLStreamException {
+        this.input = input;
+        this.xml = FACTORY.createXMLStreamReader(input, encoding);
+        this.context = context;
+    }
+
+    private static XMLInputFactory createFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Element names are matched with their prefixes, the same way as the DOM engine does:
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    @Override
+    public Geocache next() throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() == XMLStreamConstants.START_ELEMENT && "wpt".equals(xml.getLocalName())) {
+                final Geocache cache = readWaypoint();
+                if (cache != null) {
+                    return cache;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The geocache of the current waypoint, or null if the waypoint is not a geocache but, for example, an
+     * additional waypoint from a Pocket Query's -wpts.gpx file.
+     */
+    private Geocache readWaypoint() throws XMLStreamException {
+        final Geocache.Builder builder = Geocache.builder().textArena(context.getTextArena()).symbols(context.getSymbols());
+        boolean geocache = false;
+        if (context.wants(GeocacheField.COORDINATES)) {
+            builder.latitude(ScalarDecoder.parseDouble(attribute("lat")))
+                    .longitude(ScalarDecoder.parseDouble(attribute("lon")));
+        }
+
+        while (nextChildElement()) {
+            switch (wanted(xml.getLocalName())) {
+                case "time":
+                    builder.hidden(context.timestamp(readScalar()));
+                    break;
+                case "name":
+                    builder.gcCode(readText());
+                    break;
+                case "groundspeak:cache":
+                    geocache = true;
+                    readCache(builder);
+                    break;
+                default:
+                    skipElement();
+                    break;
+            }
+        }
+        return geocache ? builder.build() : null;
+    }
+
+    private void readCache(final Geocache.Builder builder) throws XMLStreamException {
+        if (context.wants(GeocacheField.STATUS)) {
+            builder.archived(ScalarDecoder.parseBoolean(attribute("archived")))
+                    .available(ScalarDecoder.parseBoolean(attribute("available")));
+        }
+
+        while (nextChildElement()) {
+            switch (wanted(xml.getLocalName())) {
+                case "groundspeak:name":
+                    builder.name(readText());
+                    break;
+                case "groundspeak:country":
+                    builder.country(context.symbol(readText()));
+                    break;
+                case "groundspeak:state":
+                    builder.state(context.symbol(readText()));
+                    break;
+                case "groundspeak:owner":
+                    builder.owner(context.symbol(readText()));
+                    break;
+                case "groundspeak:type":
+                    builder.type(CacheType.getByGpxDescription(readScalar()));
+                    break;
+                case "groundspeak:container":
+                    builder.size(CacheSize.getByGpxDescription(readScalar()));
+                    break;
+                case "groundspeak:difficulty":
+                    builder.difficulty(ScalarDecoder.parseFloat(readScalar()));
+                    break;
+                case "groundspeak:terrain":
+                    builder.terrain(ScalarDecoder.parseFloat(readScalar()));
+                    break;
+                case "groundspeak:short_description":
+                    builder.shortDescription(readText());
+                    break;
+                case "groundspeak:long_description":
+                    builder.longDescription(readText());
+                    break;
+                case "groundspeak:encoded_hints":
+                    builder.hint(readText());
+                    break;
+                case "groundspeak:attributes":
+                    readAttributes(builder);
+                    break;
+                case "groundspeak:logs":
+                    readLogs(builder);
+                    break;
+                default:
+                    skipElement();
+                    break;
+            }
+        }
+    }
+
+    private void readAttributes(final Geocache.Builder builder) throws XMLStreamException {
+        while (nextChildElement()) {
+            final boolean included = "1".equals(attribute("inc"));
+            builder.attribute(context.symbol(readText()), included);
+        }
+    }
+
+    private void readLogs(final Geocache.Builder builder) throws XMLStreamException {
+        final LogRetention retention = context.getLogRetention();
+        int kept = 0;
+        while (kept < retention.getLimit()) {
+            if (!nextChildElement()) {
+                return;
+            }
+            final long id = ScalarDecoder.parseLong(attribute("id"));
+            LocalDateTime date = null;
+            LogType type = null;
+            String finder = null;
+            String text = null;
+            while (nextChildElement()) {
+                switch (wantedInLog(xml.getLocalName())) {
+                    case "groundspeak:date":
+                        date = context.timestamp(readScalar());
+                        break;
+                    case "groundspeak:type":
+                        type = LogType.getByGpxDescription(readScalar());
+                        break;
+                    case "groundspeak:finder":
+                        finder = readText();
+                        break;
+                    case "groundspeak:text":
+                        // The text comes after the other details, so unwanted texts can be skipped:
+                        if (retention.accepts(type, finder, date)) {
+                            text = readText();
+                        } else {
+                            skipElement();
+                        }
+                        break;
+                    default:
+                        skipElement();
+                        break;
+                }
+            }
+            if (retention.accepts(type, finder, date)) {
+                builder.addLog(Log.builder().textArena(context.getTextArena()).id(id).date(date).type(type).user(context.symbol(finder)).text(text).build());
+                kept++;
+            }
+        }
+        // Enough logs have been kept, so the rest of them can be skipped:
+        skipElement();
+    }
+
+    /**
+     * Returns the given element name if the field that the element holds has been requested, or an empty string if
+     * the element should be skipped.
+     */
+    private String wanted(final String elementName) {
+        final GeocacheField field;
+        switch (elementName) {
+            case "time":
+                field = GeocacheField.HIDDEN;
+                break;
+            case "name":
+                field = GeocacheField.GC_CODE;
+                break;
+            case "groundspeak:name":
+                field = GeocacheField.NAME;
+                break;
+            case "groundspeak:country":
+                field = GeocacheField.COUNTRY;
+                break;
+            case "groundspeak:state":
+                field = GeocacheField.STATE;
+                break;
+            case "groundspeak:owner":
+                field = GeocacheField.OWNER;
+                break;
+            case "groundspeak:type":
+                field = GeocacheField.TYPE;
+                break;
+            case "groundspeak:container":
+                field = GeocacheField.SIZE;
+                break;
+            case "groundspeak:difficulty":
+                field = GeocacheField.DIFFICULTY;
+                break;
+            case "groundspeak:terrain":
+                field = GeocacheField.TERRAIN;
+                break;
+            case "groundspeak:short_description":
+                field = GeocacheField.SHORT_DESCRIPTION;
+                break;
+            case "groundspeak:long_description":
+                field = GeocacheField.LONG_DESCRIPTION;
+                break;
+            case "groundspeak:encoded_hints":
+                field = GeocacheField.HINT;
+                break;
+            case "groundspeak:attributes":
+                field = GeocacheField.ATTRIBUTES;
+                break;
+            case "groundspeak:logs":
+                field = GeocacheField.LOGS;
+                break;
+            default:
+                return elementName;
+        }
+        return context.wants(field) ? elementName : "";
+    }
+
+    private String wantedInLog(final String elementName) {
+        if ("groundspeak:text".equals(elementName) && !context.wants(GeocacheField.LOG_TEXTS)) {
+            return "";
+        }
+        return elementName;
+    }
+
+    /**
+     * Returns the value of the given attribute of the current element, or an empty string if there is no such
+     * attribute, just like {@link org.w3c.dom.Element#getAttribute(String)} does.
+     */
+    private String attribute(final String name) {
+        final String value = xml.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Advances to the start of the next child element of the current element.
+     *
+     * @return True if a child element was found, false if the end of the current element was reached instead.
+     */
+    private boolean nextChildElement() throws XMLStreamException {
+        while (xml.hasNext()) {
+            final int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads all the text inside the current element, including the text of any nested elements, and moves to the
+     * end of the element. This is the streaming equivalent of {@link org.w3c.dom.Node#getTextContent()}.
+     */
+    private String readText() throws XMLStreamException {
+        String text = null;
+        StringBuilder sb = null;
+        int depth = 1;
+        while (depth > 0) {
+            switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (text == null) {
+                        text = xml.getText();
+                    } else {
+                        if (sb == null) {
+                            sb = new StringBuilder(text);
+                        }
+                        sb.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (sb != null) {
+            return sb.toString();
+        }
+        return text == null ? "" : text;
+    }
+
+    /**
+     * Reads the text of the current element like {@link #readText()} does, but into a buffer that is reused for
+     * every value, so that the numbers, dates and enum values can be decoded without creating a string.
+     *
+     * @return The text, which is only valid until the next call.
+     */
+    private CharSequence readScalar() throws XMLStreamException {
+        scalar.clear();
+        int depth = 1;
+        while (depth > 0) {
+            switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    scalar.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return scalar;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of the strings that repeat from one cache to another, such as the owners, countries, states and log finders.
+ * Every distinct value is kept only once, and all the caches that have that value share the same String instance.
+ * The table can be used from several threads at the same time.
+ * <p>
+ * The values that are stored in large numbers, such as the finders of the logs, can also be given numeric codes, so
+ * that they can be kept in a primitive array instead of an array of references.
+ */
+final class SymbolTable {
+
+    private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] decoded = new String[64];
+    private int codeCount = 0;
+
+    /**
+     * Returns the pooled instance of the given string, adding the string to the pool if it is not there yet.
+     *
+     * @param value The string to look up. May be null.
+     * @return An equal string from the pool, or null if the value was null.
+     */
+    String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String existing = symbols.get(value);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+        final String raced = symbols.putIfAbsent(value, value);
+        if (raced != null) {
+            hits.increment();
+            return raced;
+        }
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Returns the numeric code of the given string, giving it the next free code if it does not have one yet. The
+     * codes start from zero and are never reused.
+     *
+     * @param value The string to encode. May be null.
+     * @return The code of the string, or -1 if the value was null.
+     */
+    int encode(final String value) {
+        if (value == null) {
+            return -1;
+        }
+        final Integer existing = codes.get(value);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+        synchronized (this) {
+            final Integer raced = codes.get(value);
+            if (raced != null) {
+                hits.increment();
+                return raced;
+            }
+            final String pooled = intern(value);
+            final int code = codeCount++;
+            String[] strings = decoded;
+            if (code == strings.length) {
+                strings = Arrays.copyOf(strings, strings.length * 2);
+            }
+            // The string is stored before the code is published, so anyone who has the code can also decode it:
+            strings[code] = pooled;
+            decoded = strings;
+            codes.put(pooled, code);
+            return code;
+        }
+    }
+
+    /**
+     * @param code A code returned by {@link #encode(String)}, or -1.
+     * @return The string that has the given code, or null if the code was -1.
+     */
+    String decode(final int code) {
+        return code < 0 ? null : decoded[code];
+    }
+
+    /**
+     * @return The number of lookups that found an existing string.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that added a new string, which is also the number of distinct strings.
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getMisses() + " distinct strings, " + getHits() + " duplicates shared";
+    }
+}
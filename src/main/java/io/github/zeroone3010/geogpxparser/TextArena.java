@@ -0,0 +1,168 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores long texts, such as the cache descriptions, hints and log texts, outside of the Java heap in direct byte
+ * buffers. The texts are kept as UTF-8, optionally deflated, and decoded back into strings only when they are
+ * accessed, so a large list of caches keeps its heap small as long as the texts are not read.
+ * <p>
+ * Each buffer is released when none of the texts stored in it are used any more.
+ *
+ * @see GeoXMLReader.TextStorage
+ */
+final class TextArena {
+
+    /**
+     * The size of a single buffer. A text that does not fit in a buffer of this size gets a buffer of its own.
+     */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Texts shorter than this are not worth compressing.
+     */
+    private static final int MIN_COMPRESSED_LENGTH = 128;
+
+    private final boolean compressed;
+    private ByteBuffer current = null;
+    private long size = 0;
+
+    /**
+     * @param compressed True to deflate the texts that become smaller by it.
+     */
+    TextArena(final boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Copies the given text into the arena.
+     *
+     * @return A view to the stored text, or null if the text was null.
+     */
+    CharSequence store(final String text) {
+        if (text == null) {
+            return null;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final byte[] stored = compressed && bytes.length >= MIN_COMPRESSED_LENGTH ? deflate(bytes) : bytes;
+        final ByteBuffer target;
+        final int offset;
+        synchronized (this) {
+            if (current == null || current.remaining() < stored.length) {
+                current = ByteBuffer.allocateDirect(Math.max(BLOCK_SIZE, stored.length));
+            }
+            target = current;
+            offset = current.position();
+            current.position(offset + stored.length);
+            size += stored.length;
+        }
+        // The space has been reserved, so the copying can be done without holding the lock:
+        target.put(offset, stored);
+        return new Text(target, offset, stored.length, bytes.length, text.length());
+    }
+
+    /**
+     * @return The number of bytes the stored texts take.
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The deflated bytes, or the given bytes if deflating did not make them any smaller. The length of the
+     * result tells which one it is.
+     */
+    private static byte[] deflate(final byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final byte[] output = new byte[bytes.length - 1];
+            final int length = deflater.deflate(output);
+            return deflater.finished() ? Arrays.copyOf(output, length) : bytes;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String load(final ByteBuffer buffer, final int offset, final int storedLength, final int length) {
+        final byte[] stored = new byte[storedLength];
+        buffer.get(offset, stored);
+        if (storedLength == length) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            final byte[] bytes = new byte[length];
+            inflater.inflate(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("A stored text is damaged.", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A text stored in an arena. {@link #toString()} decodes the text again each time, unless the text is already
+     * decoded. Reading the text character by character decodes it once and keeps the string behind a soft reference,
+     * so that looping over the characters does not decode the whole text for each of them, while the garbage
+     * collector can still reclaim the string when the heap runs low.
+     */
+    private static final class Text implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int storedLength;
+        private final int byteLength;
+        private final int length;
+        private volatile SoftReference<String> decoded;
+
+        Text(final ByteBuffer buffer, final int offset, final int storedLength, final int byteLength,
+             final int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.storedLength = storedLength;
+            this.byteLength = byteLength;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return decoded().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return decoded().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            final SoftReference<String> reference = decoded;
+            final String text = reference == null ? null : reference.get();
+            return text != null ? text : load(buffer, offset, storedLength, byteLength);
+        }
+
+        private String decoded() {
+            final SoftReference<String> reference = decoded;
+            String text = reference == null ? null : reference.get();
+            if (text == null) {
+                text = load(buffer, offset, storedLength, byteLength);
+                decoded = new SoftReference<>(text);
+            }
+            return text;
+        }
+    }
+}
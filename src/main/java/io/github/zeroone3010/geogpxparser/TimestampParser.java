@@ -0,0 +1,131 @@
+package io.github.zeroone3010.geogpxparser;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the timestamps of .gpx files, such as {@code 2010-07-08T19:00:00Z}, into local date-times. The time zone or
+ * offset, if any, is dropped and the local part is kept as is.
+ * <p>
+ * The shapes that the .gpx files actually use, {@code yyyy-MM-ddTHH:mm:ss} followed by optional fractional seconds
+ * and an optional {@code Z} or {@code ±hh:mm} offset, are decoded by hand without creating any intermediate objects
+ * or exceptions. Anything else falls back to {@link ZonedDateTime#parse(CharSequence)}.
+ */
+final class TimestampParser {
+
+    private static final Pattern WITHOUT_ZONE = Pattern.compile("\\d\\d\\d\\d-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d");
+    private static final int[] NANO_SCALE = {100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
+
+    private TimestampParser() { /* prevent */}
+
+    /**
+     * Parses the given timestamp.
+     *
+     * @param text The timestamp, such as {@code 2010-07-08T19:00:00Z}.
+     * @return The local date and time, or null if the text is not a valid timestamp.
+     */
+    static LocalDateTime parse(final CharSequence text) {
+        final LocalDateTime result = parseFast(text);
+        if (result != null) {
+            return result;
+        }
+        return parseWithJavaTime(text.toString());
+    }
+
+    /**
+     * @return The parsed date-time, or null if the text is not in one of the common shapes.
+     */
+    private static LocalDateTime parseFast(final CharSequence text) {
+        final int length = text.length();
+        if (length < 19 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+        final int year = digits(text, 0, 4);
+        final int month = digits(text, 5, 2);
+        final int day = digits(text, 8, 2);
+        final int hour = digits(text, 11, 2);
+        final int minute = digits(text, 14, 2);
+        final int second = digits(text, 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+
+        int position = 19;
+        int nano = 0;
+        if (position < length && text.charAt(position) == '.') {
+            final int fractionStart = ++position;
+            while (position < length && position - fractionStart < 9 && isDigit(text.charAt(position))) {
+                nano += (text.charAt(position) - '0') * NANO_SCALE[position - fractionStart];
+                position++;
+            }
+            if (position == fractionStart) {
+                return null;
+            }
+        }
+
+        if (position < length && !isZone(text, position)) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException invalidValue) {
+            return null;
+        }
+    }
+
+    /**
+     * @return True if the text continues from the given position with a {@code Z} or a {@code ±hh:mm} offset and
+     * nothing else.
+     */
+    private static boolean isZone(final CharSequence text, final int position) {
+        final int length = text.length();
+        final char zone = text.charAt(position);
+        if (zone == 'Z') {
+            return position + 1 == length;
+        }
+        if ((zone != '+' && zone != '-') || position + 6 != length || text.charAt(position + 3) != ':') {
+            return false;
+        }
+        final int offsetHours = digits(text, position + 1, 2);
+        final int offsetMinutes = digits(text, position + 4, 2);
+        return offsetHours >= 0 && offsetHours < 18 && offsetMinutes >= 0 && offsetMinutes <= 59;
+    }
+
+    /**
+     * @return The value of the given decimal digits, or -1 if any of the characters is not a digit.
+     */
+    private static int digits(final CharSequence text, final int start, final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static LocalDateTime parseWithJavaTime(final String xmlTimeString) {
+        try {
+            return ZonedDateTime.parse(xmlTimeString).toLocalDateTime();
+        } catch (DateTimeParseException tryFormatWithTimeZoneMissing) {
+            if (WITHOUT_ZONE.matcher(xmlTimeString).matches()) {
+                try {
+                    return ZonedDateTime.parse(xmlTimeString + "Z").toLocalDateTime();
+                } catch (IllegalArgumentException ignore) {
+                }
+            }
+        }
+        return null;
+    }
+}
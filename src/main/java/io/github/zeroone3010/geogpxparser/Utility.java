@@ -2,6 +2,7 @@ package io.github.zeroone3010.geogpxparser;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.logging.Level;
@@ -25,9 +26,39 @@ public final class Utility {
     }
 
     public static Log findFoundLog(final Geocache cache) {
-        return cache.getLogs().stream() //
-                .filter(log -> log.getType().countsAsFind() && log.getDate() != null) //
-                .findFirst().orElse(null);
+        final LogStore logs = cache.getLogStore();
+        final int found = logs.findFirstFound();
+        return found < 0 ? null : logs.get(found);
+    }
+
+    /**
+     * Returns the date of the log that {@link #findFoundLog(Geocache)} would return, without creating the log.
+     *
+     * @param cache The cache.
+     * @return The date of the first find, or null if the cache has not been found.
+     */
+    public static LocalDate findFoundDate(final Geocache cache) {
+        final int found = findFoundLogIndex(cache);
+        return found < 0 ? null : getLogDate(cache, found);
+    }
+
+    /**
+     * Returns the index of the log that {@link #findFoundLog(Geocache)} would return, without creating the log.
+     *
+     * @param cache The cache.
+     * @return The index of the first find in {@link Geocache#getLogs()}, or -1 if the cache has not been found.
+     */
+    public static int findFoundLogIndex(final Geocache cache) {
+        return cache.getLogStore().findFirstFound();
+    }
+
+    /**
+     * @param cache The cache.
+     * @param index The index of a log in {@link Geocache#getLogs()}.
+     * @return The date of the log, without creating the log.
+     */
+    public static LocalDate getLogDate(final Geocache cache, final int index) {
+        return cache.getLogStore().getLocalDate(index);
     }
 
     public static String formatDate(final TemporalAccessor date) {
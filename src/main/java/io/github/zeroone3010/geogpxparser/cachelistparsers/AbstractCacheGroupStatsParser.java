@@ -6,12 +6,11 @@ import io.github.zeroone3010.geogpxparser.tabular.CellData;
 import io.github.zeroone3010.geogpxparser.tabular.TableData;
 import io.github.zeroone3010.geogpxparser.tabular.TableRow;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 
 /**
@@ -22,15 +21,18 @@ import java.util.Optional;
  */
 public abstract class AbstractCacheGroupStatsParser implements ICachesToTabularDataParser {
 
-    private Map<String, Group> groups = new LinkedHashMap<>();
-
     abstract String getTableId();
 
     abstract String getTableGroupColumnTitle();
 
     abstract CellData createTableGroupColumnRowContent(Group group);
 
-    abstract String getCacheGroupKey(Geocache cache);
+    /**
+     * @param cache    The cache.
+     * @param foundDate The date of the first log of the cache that counts as a find, or null.
+     * @return The name of the group of the cache, or null if the cache does not belong to any group.
+     */
+    abstract String getCacheGroupKey(Geocache cache, LocalDate foundDate);
 
     /**
      * Returns a table with data about cache groups.
@@ -40,13 +42,44 @@ public abstract class AbstractCacheGroupStatsParser implements ICachesToTabularD
      */
     @Override
     public final TableData getTabularInfo(final List<Geocache> caches) {
+        return new CacheStatsEngine(this).getTabularInfo(caches).get(0);
+    }
 
-        // Parse cache group info into a map:
-        for (final Geocache cache : caches) {
-            final String cacheGroupKey = getCacheGroupKey(cache);
-            Optional.ofNullable(cacheGroupKey).ifPresent(cgk -> addCacheToGroup(cgk, cache));
-        }
+    /**
+     * Creates an aggregator whose state maps the group names to the groups. The groups are kept in the order in which
+     * they were first seen: merging two states appends the new groups of the later state after the groups of the
+     * earlier one.
+     */
+    @Override
+    public final CacheAggregator<Map<String, Group>> newAggregator() {
+        return new CacheAggregator<Map<String, Group>>() {
+            @Override
+            public Map<String, Group> createState() {
+                return new LinkedHashMap<>();
+            }
+
+            @Override
+            public void accumulate(final Map<String, Group> groups, final Geocache cache, final int foundLog,
+                                   final LocalDate foundDate) {
+                // Parse cache group info into a map:
+                final String cacheGroupKey = getCacheGroupKey(cache, foundDate);
+                Optional.ofNullable(cacheGroupKey).ifPresent(cgk -> addCacheToGroup(groups, cgk, cache));
+            }
+
+            @Override
+            public Map<String, Group> merge(final Map<String, Group> first, final Map<String, Group> second) {
+                second.forEach((name, group) -> first.merge(name, group, Group::addAll));
+                return first;
+            }
+
+            @Override
+            public TableData finish(final Map<String, Group> groups) {
+                return createTable(groups.values());
+            }
+        };
+    }
 
+    private TableData createTable(final Collection<Group> groups) {
         final TableData result = new TableData(getTableId());
 
         // Create titles:
@@ -60,16 +93,14 @@ public abstract class AbstractCacheGroupStatsParser implements ICachesToTabularD
         result.addRow(headerRow);
 
         // Create data rows:
-        for (final Group group : groups.values()) {
+        for (final Group group : groups) {
             final TableRow dataRow = new TableRow(false);
             dataRow.addCell(createTableGroupColumnRowContent(group));
             dataRow.addCell(new CellData(String.valueOf(group.getTotalNumberOfCaches())));
             dataRow.addCell(new CellData(String.valueOf(group.getNumberOfCacheTypes())));
 
-            final Map<CacheType, Collection<Geocache>> cacheMap = group.getCaches();
-
-            for (final Entry<CacheType, Collection<Geocache>> entry : cacheMap.entrySet()) {
-                dataRow.addCell(new CellData(String.valueOf(entry.getValue().size())));
+            for (final CacheType cacheType : CacheType.values()) {
+                dataRow.addCell(new CellData(String.valueOf(group.getNumberOfCaches(cacheType))));
             }
             result.addRow(dataRow);
         }
@@ -77,37 +108,65 @@ public abstract class AbstractCacheGroupStatsParser implements ICachesToTabularD
         return result;
     }
 
-    private void addCacheToGroup(final String groupName, final Geocache cache) {
+    private void addCacheToGroup(final Map<String, Group> groups, final String groupName, final Geocache cache) {
         groups.merge(groupName, new Group(groupName), (existing, x) -> existing);
         groups.get(groupName).addCache(cache);
     }
 
     /**
      * Represents a group of geocaches. Keeps track of the name of the group and
-     * the different cache types it has.
+     * the number of caches of each type it has.
+     * <p>
+     * The counts are kept in an array indexed by the ordinals of the cache types,
+     * so a group takes the same amount of memory however many caches it has.
      */
-    final class Group {
+    static final class Group {
+
+        private static final CacheType[] TYPES = CacheType.values();
 
         private final String name;
-        private final Map<CacheType, Collection<Geocache>> caches = new LinkedHashMap<>();
+        private final int[] counts = new int[TYPES.length];
 
         public Group(final String groupName) {
             name = groupName;
-            for (CacheType cacheType : CacheType.values()) {
-                caches.put(cacheType, new LinkedHashSet<>());
-            }
         }
 
         public void addCache(final Geocache cache) {
-            caches.get(cache.getType()).add(cache);
+            counts[cache.getType().ordinal()]++;
+        }
+
+        /**
+         * Adds the caches of another group with the same name to this one.
+         *
+         * @return This group.
+         */
+        Group addAll(final Group other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            return this;
         }
 
         public int getTotalNumberOfCaches() {
-            return caches.values().stream().mapToInt(Collection::size).reduce(0, Integer::sum);
+            int total = 0;
+            for (final int count : counts) {
+                total += count;
+            }
+            return total;
         }
 
         public int getNumberOfCacheTypes() {
-            return (int) caches.values().stream().filter(val -> val.size() > 0).count();
+            int types = 0;
+            for (final int count : counts) {
+                if (count > 0) {
+                    types++;
+                }
+            }
+            return types;
+        }
+
+        public int getNumberOfCaches(final CacheType cacheType) {
+            return counts[cacheType.ordinal()];
         }
 
         @Override
@@ -119,10 +178,6 @@ public abstract class AbstractCacheGroupStatsParser implements ICachesToTabularD
             return name;
         }
 
-        public Map<CacheType, Collection<Geocache>> getCaches() {
-            return caches;
-        }
-
         @Override
         public boolean equals(final Object o) {
             if (o != null && !(o instanceof Group)) {
@@ -0,0 +1,140 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+import io.github.zeroone3010.geogpxparser.tabular.CellData;
+import io.github.zeroone3010.geogpxparser.tabular.TableData;
+import io.github.zeroone3010.geogpxparser.tabular.TableRow;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Parses a grid challenge from the given list of caches: the number of found
+ * caches in each cell of a fixed grid, and the cells that are still missing.
+ * <p>
+ * The counts are kept in a single int array indexed by the cell, so the state
+ * of the whole grid stays the same size however many finds there are.
+ */
+public abstract class AbstractGridChallengeParser implements ICachesToTabularDataParser {
+
+    static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov",
+            "Dec"};
+
+    abstract String getTableId();
+
+    abstract String getTableRowColumnTitle();
+
+    /**
+     * @return The titles of the columns, one for each cell of a row.
+     */
+    abstract String[] getColumnTitles();
+
+    /**
+     * @return The titles of the rows.
+     */
+    abstract String[] getRowTitles(int[] counts);
+
+    /**
+     * @return The number of cells in the whole grid. The cell of the given row and column is at
+     * {@code row * getColumnTitles().length + column}.
+     */
+    abstract int getCellCount();
+
+    /**
+     * @param cache    The found cache.
+     * @param foundDate The date of the first log of the cache that counts as a find.
+     * @return The cell of the cache, or -1 if the cache does not belong to any cell.
+     */
+    abstract int getCell(Geocache cache, LocalDate foundDate);
+
+    /**
+     * @return True if the given cell can be filled at all. Cells that cannot be filled are left empty.
+     */
+    boolean exists(final int cell) {
+        return true;
+    }
+
+    /**
+     * Returns a table with the grid, and with the missing cells of each row in
+     * the last column.
+     *
+     * @param caches A List of Geocache objects
+     * @return A table that can be saved into a file in various formats
+     */
+    @Override
+    public final TableData getTabularInfo(final List<Geocache> caches) {
+        return new CacheStatsEngine(this).getTabularInfo(caches).get(0);
+    }
+
+    @Override
+    public final CacheAggregator<int[]> newAggregator() {
+        return new CacheAggregator<int[]>() {
+            @Override
+            public int[] createState() {
+                return new int[getCellCount()];
+            }
+
+            @Override
+            public void accumulate(final int[] counts, final Geocache cache, final int foundLog,
+                                   final LocalDate foundDate) {
+                if (foundDate != null) {
+                    final int cell = getCell(cache, foundDate);
+                    if (cell >= 0) {
+                        counts[cell]++;
+                    }
+                }
+            }
+
+            @Override
+            public int[] merge(final int[] first, final int[] second) {
+                for (int i = 0; i < first.length; i++) {
+                    first[i] += second[i];
+                }
+                return first;
+            }
+
+            @Override
+            public TableData finish(final int[] counts) {
+                return createTable(counts);
+            }
+        };
+    }
+
+    private TableData createTable(final int[] counts) {
+        final TableData result = new TableData(getTableId());
+        final String[] columnTitles = getColumnTitles();
+
+        // Create titles:
+        final TableRow headerRow = new TableRow(true);
+        headerRow.addCell(new CellData(getTableRowColumnTitle()));
+        for (final String columnTitle : columnTitles) {
+            headerRow.addCell(new CellData(columnTitle));
+        }
+        headerRow.addCell(new CellData("Missing"));
+        result.addRow(headerRow);
+
+        // Create data rows:
+        final String[] rowTitles = getRowTitles(counts);
+        for (int row = 0; row < rowTitles.length; row++) {
+            final TableRow dataRow = new TableRow(false);
+            final StringJoiner missing = new StringJoiner(", ");
+            dataRow.addCell(new CellData(rowTitles[row]));
+            for (int column = 0; column < columnTitles.length; column++) {
+                final int cell = row * columnTitles.length + column;
+                if (!exists(cell)) {
+                    dataRow.addCell(new CellData(""));
+                    continue;
+                }
+                dataRow.addCell(new CellData(String.valueOf(counts[cell])));
+                if (counts[cell] == 0) {
+                    missing.add(columnTitles[column]);
+                }
+            }
+            dataRow.addCell(new CellData(missing.toString()));
+            result.addRow(dataRow);
+        }
+
+        return result;
+    }
+}
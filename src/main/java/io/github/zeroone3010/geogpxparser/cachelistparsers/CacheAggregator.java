@@ -0,0 +1,52 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+import io.github.zeroone3010.geogpxparser.tabular.TableData;
+
+import java.time.LocalDate;
+
+/**
+ * Builds a single table out of caches that are handed to it one at a time. The caches may be split into several
+ * parts that are accumulated into states of their own, even in different threads, and the states are then merged
+ * together in the order of the parts.
+ * <p>
+ * An aggregator itself has no state, so the same aggregator can be used for any number of tables at the same time.
+ *
+ * @param <S> The type of the partial state
+ * @see CacheStatsEngine
+ */
+public interface CacheAggregator<S> {
+
+    /**
+     * @return A new, empty state.
+     */
+    S createState();
+
+    /**
+     * Adds a cache to the given state.
+     *
+     * @param state     The state to add the cache to.
+     * @param cache     The cache.
+     * @param foundLog  The index in {@link Geocache#getLogs()} of the first log of the cache that counts as a find, as
+     *                  returned by {@link io.github.zeroone3010.geogpxparser.Utility#findFoundLogIndex(Geocache)}, or
+     *                  -1.
+     * @param foundDate The date of that log, or null if the cache has not been found.
+     */
+    void accumulate(S state, Geocache cache, int foundLog, LocalDate foundDate);
+
+    /**
+     * Merges two states. The caches of the first state come before the caches of the second one. Either of the
+     * states may be modified and returned.
+     *
+     * @param first  The state of the earlier caches.
+     * @param second The state of the later caches.
+     * @return The state of both.
+     */
+    S merge(S first, S second);
+
+    /**
+     * @param state The state of all the caches.
+     * @return The table of the caches.
+     */
+    TableData finish(S state);
+}
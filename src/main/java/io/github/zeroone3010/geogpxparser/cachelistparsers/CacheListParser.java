@@ -9,7 +9,10 @@ import io.github.zeroone3010.geogpxparser.tabular.CellData;
 import io.github.zeroone3010.geogpxparser.tabular.TableData;
 import io.github.zeroone3010.geogpxparser.tabular.TableRow;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A parser for transforming a List of Geocache objects into table format.
@@ -30,7 +33,45 @@ public class CacheListParser implements ICachesToTabularDataParser {
 
     @Override
     public TableData getTabularInfo(final List<Geocache> caches) {
+        return getTabularInfo(caches.stream());
+    }
+
+    @Override
+    public TableData getTabularInfo(final Stream<Geocache> caches) {
+        return new CacheStatsEngine(this).getTabularInfo(caches).get(0);
+    }
+
+    @Override
+    public CacheAggregator<List<TableRow>> newAggregator() {
+        return new CacheAggregator<List<TableRow>>() {
+            @Override
+            public List<TableRow> createState() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accumulate(final List<TableRow> rows, final Geocache cache, final int foundLog,
+                                   final LocalDate foundDate) {
+                // The table links to the log itself, so only this table needs the whole log:
+                rows.add(createRow(cache, foundLog < 0 ? null : cache.getLogs().get(foundLog)));
+            }
+
+            @Override
+            public List<TableRow> merge(final List<TableRow> first, final List<TableRow> second) {
+                first.addAll(second);
+                return first;
+            }
 
+            @Override
+            public TableData finish(final List<TableRow> rows) {
+                final TableData result = createTable();
+                rows.forEach(result::addRow);
+                return result;
+            }
+        };
+    }
+
+    private static TableData createTable() {
         final TableData result = new TableData("caches");
         final TableRow headerRow = new TableRow(true);
 
@@ -47,33 +88,31 @@ public class CacheListParser implements ICachesToTabularDataParser {
         headerRow.addCell(new CellData("country"));
         headerRow.addCell(new CellData("found"));
         result.addRow(headerRow);
+        return result;
+    }
 
-        for (final Geocache cache : caches) {
-            final TableRow dataRow = new TableRow(false);
-            dataRow.addCell(new CellData(cache.getGcCode(), "http://coord.info/" + cache.getGcCode()));
-            dataRow.addCell(new CellData(cache.getType().name()));
-            dataRow.addCell(new CellData(cache.getName()));
-            dataRow.addCell(new CellData(coordinateFormatter.formatLatitude(cache.getLatitude())));
-            dataRow.addCell(new CellData(coordinateFormatter.formatLongitude(cache.getLongitude())));
-            dataRow.addCell(new CellData(cache.getSize().getGpxDescription()));
-            dataRow.addCell(new CellData(String.valueOf(cache.getDifficulty())));
-            dataRow.addCell(new CellData(String.valueOf(cache.getTerrain())));
-            if (cache.getHidden() != null) {
-                dataRow.addCell(new CellData(Utility.formatDate(cache.getHidden())));
-            } else {
-                dataRow.addCell(new CellData("-"));
-            }
-            dataRow.addCell(new CellData(cache.getOwner(), Utility.getOwnerUrl(cache.getOwner())));
-            dataRow.addCell(new CellData(cache.getCountry()));
-            final Log log = Utility.findFoundLog(cache);
-            if (log != null) {
-                dataRow.addCell(new CellData(Utility.formatDate(log.getDate()), "http://www.geocaching.com/seek/log.aspx?LID=" + log.getId()));
-            } else {
-                dataRow.addCell(new CellData("-"));
-            }
-            result.addRow(dataRow);
+    private TableRow createRow(final Geocache cache, final Log log) {
+        final TableRow dataRow = new TableRow(false);
+        dataRow.addCell(new CellData(cache.getGcCode(), "http://coord.info/" + cache.getGcCode()));
+        dataRow.addCell(new CellData(cache.getType().name()));
+        dataRow.addCell(new CellData(cache.getName()));
+        dataRow.addCell(new CellData(coordinateFormatter.formatLatitude(cache.getLatitude())));
+        dataRow.addCell(new CellData(coordinateFormatter.formatLongitude(cache.getLongitude())));
+        dataRow.addCell(new CellData(cache.getSize().getGpxDescription()));
+        dataRow.addCell(new CellData(String.valueOf(cache.getDifficulty())));
+        dataRow.addCell(new CellData(String.valueOf(cache.getTerrain())));
+        if (cache.getHidden() != null) {
+            dataRow.addCell(new CellData(Utility.formatDate(cache.getHidden())));
+        } else {
+            dataRow.addCell(new CellData("-"));
         }
-
-        return result;
+        dataRow.addCell(new CellData(cache.getOwner(), Utility.getOwnerUrl(cache.getOwner())));
+        dataRow.addCell(new CellData(cache.getCountry()));
+        if (log != null) {
+            dataRow.addCell(new CellData(Utility.formatDate(log.getDate()), "http://www.geocaching.com/seek/log.aspx?LID=" + log.getId()));
+        } else {
+            dataRow.addCell(new CellData("-"));
+        }
+        return dataRow;
     }
 }
@@ -0,0 +1,86 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+import io.github.zeroone3010.geogpxparser.Utility;
+import io.github.zeroone3010.geogpxparser.tabular.TableData;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Creates the tables of several parsers with a single pass over the caches. Each cache is handed to the aggregator of
+ * every parser in turn, and the date of the first find of each cache is read only once, straight from the stored logs.
+ * <p>
+ * In parallel mode the list of caches is split into parts that are aggregated in the common fork-join pool and then
+ * merged in order, so the tables are the same as in sequential mode.
+ */
+public final class CacheStatsEngine {
+
+    private final List<CacheAggregator<Object>> aggregators = new ArrayList<>();
+    private boolean parallel = false;
+
+    @SuppressWarnings("unchecked")
+    public CacheStatsEngine(final ICachesToTabularDataParser... parsers) {
+        for (final ICachesToTabularDataParser parser : parsers) {
+            aggregators.add((CacheAggregator<Object>) parser.newAggregator());
+        }
+    }
+
+    /**
+     * @param parallel True to aggregate the caches of a list in several threads.
+     * @return This engine.
+     */
+    public CacheStatsEngine parallel(final boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * @param caches A List of Geocache objects
+     * @return The tables of the parsers, in the same order as the parsers were given in
+     */
+    public List<TableData> getTabularInfo(final List<Geocache> caches) {
+        return getTabularInfo(parallel ? caches.parallelStream() : caches.stream());
+    }
+
+    /**
+     * @param caches A Stream of Geocache objects. A parallel stream is aggregated in parallel, keeping the order of
+     *               an ordered stream.
+     * @return The tables of the parsers, in the same order as the parsers were given in
+     */
+    public List<TableData> getTabularInfo(final Stream<Geocache> caches) {
+        final Object[] states = caches.collect(Collector.of(this::createStates, this::accumulate, this::merge));
+        final List<TableData> tables = new ArrayList<>(aggregators.size());
+        for (int i = 0; i < aggregators.size(); i++) {
+            tables.add(aggregators.get(i).finish(states[i]));
+        }
+        return tables;
+    }
+
+    private Object[] createStates() {
+        final Object[] states = new Object[aggregators.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = aggregators.get(i).createState();
+        }
+        return states;
+    }
+
+    private void accumulate(final Object[] states, final Geocache cache) {
+        // The logs are searched only once for all the tables:
+        final int foundLog = Utility.findFoundLogIndex(cache);
+        final LocalDate foundDate = foundLog < 0 ? null : Utility.getLogDate(cache, foundLog);
+        for (int i = 0; i < states.length; i++) {
+            aggregators.get(i).accumulate(states[i], cache, foundLog, foundDate);
+        }
+    }
+
+    private Object[] merge(final Object[] first, final Object[] second) {
+        for (int i = 0; i < first.length; i++) {
+            first[i] = aggregators.get(i).merge(first[i], second[i]);
+        }
+        return first;
+    }
+}
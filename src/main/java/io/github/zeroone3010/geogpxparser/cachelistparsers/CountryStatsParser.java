@@ -3,6 +3,8 @@ package io.github.zeroone3010.geogpxparser.cachelistparsers;
 import io.github.zeroone3010.geogpxparser.Geocache;
 import io.github.zeroone3010.geogpxparser.tabular.CellData;
 
+import java.time.LocalDate;
+
 /**
  * Parses country statistics from the given list of caches: the number of caches
  * and different cache types each country has.
@@ -26,7 +28,7 @@ public class CountryStatsParser extends AbstractCacheGroupStatsParser {
     }
 
     @Override
-    String getCacheGroupKey(final Geocache cache) {
+    String getCacheGroupKey(final Geocache cache, final LocalDate foundDate) {
         return cache.getCountry();
     }
 }
@@ -1,10 +1,10 @@
 package io.github.zeroone3010.geogpxparser.cachelistparsers;
 
 import io.github.zeroone3010.geogpxparser.Geocache;
-import io.github.zeroone3010.geogpxparser.Log;
 import io.github.zeroone3010.geogpxparser.Utility;
 import io.github.zeroone3010.geogpxparser.tabular.CellData;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 /**
@@ -30,9 +30,8 @@ public class DateStatsParser extends AbstractCacheGroupStatsParser {
     }
 
     @Override
-    String getCacheGroupKey(final Geocache cache) {
-        return Optional.ofNullable(Utility.findFoundLog(cache))
-                .map(Log::getDate)
+    String getCacheGroupKey(final Geocache cache, final LocalDate foundDate) {
+        return Optional.ofNullable(foundDate)
                 .map(Utility::formatDate)
                 .orElse(null);
     }
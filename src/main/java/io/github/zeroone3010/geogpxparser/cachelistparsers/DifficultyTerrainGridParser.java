@@ -0,0 +1,57 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+
+import java.time.LocalDate;
+
+/**
+ * A parser for the difficulty and terrain grid challenge: the number of found
+ * caches of each of the 81 combinations of difficulty and terrain ratings.
+ */
+public class DifficultyTerrainGridParser extends AbstractGridChallengeParser {
+
+    private static final String[] RATINGS = {"1.0", "1.5", "2.0", "2.5", "3.0", "3.5", "4.0", "4.5", "5.0"};
+
+    @Override
+    String getTableId() {
+        return "dtGrid";
+    }
+
+    @Override
+    String getTableRowColumnTitle() {
+        return "D \\ T";
+    }
+
+    @Override
+    String[] getColumnTitles() {
+        return RATINGS;
+    }
+
+    @Override
+    String[] getRowTitles(final int[] counts) {
+        return RATINGS;
+    }
+
+    @Override
+    int getCellCount() {
+        return RATINGS.length * RATINGS.length;
+    }
+
+    @Override
+    int getCell(final Geocache cache, final LocalDate foundDate) {
+        final int difficulty = rating(cache.getDifficulty());
+        final int terrain = rating(cache.getTerrain());
+        return difficulty < 0 || terrain < 0 ? -1 : difficulty * RATINGS.length + terrain;
+    }
+
+    /**
+     * @return The index of the given rating, or -1 if it is not one of the ratings of the grid.
+     */
+    private static int rating(final float rating) {
+        final float halfStars = rating * 2;
+        if (halfStars < 2 || halfStars > 10 || halfStars != (int) halfStars) {
+            return -1;
+        }
+        return (int) halfStars - 2;
+    }
+}
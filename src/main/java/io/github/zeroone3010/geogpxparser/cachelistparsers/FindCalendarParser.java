@@ -0,0 +1,57 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * A parser for the find calendar challenge: the number of caches found on
+ * each of the 366 days of the year, whatever the year.
+ */
+public class FindCalendarParser extends AbstractGridChallengeParser {
+
+    private static final String[] DAYS = new String[31];
+
+    static {
+        for (int i = 0; i < DAYS.length; i++) {
+            DAYS[i] = String.valueOf(i + 1);
+        }
+    }
+
+    @Override
+    String getTableId() {
+        return "findCalendar";
+    }
+
+    @Override
+    String getTableRowColumnTitle() {
+        return "Month";
+    }
+
+    @Override
+    String[] getColumnTitles() {
+        return DAYS;
+    }
+
+    @Override
+    String[] getRowTitles(final int[] counts) {
+        return MONTHS;
+    }
+
+    @Override
+    int getCellCount() {
+        return MONTHS.length * DAYS.length;
+    }
+
+    @Override
+    int getCell(final Geocache cache, final LocalDate foundDate) {
+        return (foundDate.getMonthValue() - 1) * DAYS.length + foundDate.getDayOfMonth() - 1;
+    }
+
+    @Override
+    boolean exists(final int cell) {
+        // February has 29 days in the calendar, since a leap day can also be found:
+        return cell % DAYS.length < Month.of(cell / DAYS.length + 1).maxLength();
+    }
+}
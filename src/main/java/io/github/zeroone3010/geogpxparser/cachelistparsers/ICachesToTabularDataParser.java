@@ -3,7 +3,11 @@ package io.github.zeroone3010.geogpxparser.cachelistparsers;
 import io.github.zeroone3010.geogpxparser.Geocache;
 import io.github.zeroone3010.geogpxparser.tabular.TableData;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * An interface for classes that can accept a List of Geocache objects and parse
@@ -14,4 +18,49 @@ import java.util.List;
 public interface ICachesToTabularDataParser {
 
     public TableData getTabularInfo(final List<Geocache> caches);
+
+    /**
+     * Parses the caches of the given stream into tabular format. The default implementation collects the stream into
+     * a list first; implementations that can handle one cache at a time should override this so that they can start
+     * working while the caches are still being read.
+     *
+     * @param caches A Stream of Geocache objects, such as {@link io.github.zeroone3010.geogpxparser.GeoXMLReader#stream()}
+     * @return A table that can be saved into a file in various formats
+     */
+    public default TableData getTabularInfo(final Stream<Geocache> caches) {
+        return getTabularInfo(caches.collect(Collectors.toList()));
+    }
+
+    /**
+     * Creates an aggregator that builds the same table as {@link #getTabularInfo(List)}, but one cache at a time, so
+     * that the table can be built together with other tables in a single pass by the {@link CacheStatsEngine}. The
+     * default implementation collects the caches into a list and parses the list in the end.
+     *
+     * @return A new aggregator
+     */
+    public default CacheAggregator<?> newAggregator() {
+        return new CacheAggregator<List<Geocache>>() {
+            @Override
+            public List<Geocache> createState() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accumulate(final List<Geocache> caches, final Geocache cache, final int foundLog,
+                                   final LocalDate foundDate) {
+                caches.add(cache);
+            }
+
+            @Override
+            public List<Geocache> merge(final List<Geocache> first, final List<Geocache> second) {
+                first.addAll(second);
+                return first;
+            }
+
+            @Override
+            public TableData finish(final List<Geocache> caches) {
+                return getTabularInfo(caches);
+            }
+        };
+    }
 }
@@ -0,0 +1,68 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.Geocache;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.YearMonth;
+
+/**
+ * A parser for the Jasmer challenge: the number of found caches hidden in each
+ * month since the first geocache was hidden in May 2000. The grid ends with
+ * the last year that any of the found caches were hidden in.
+ */
+public class JasmerChallengeParser extends AbstractGridChallengeParser {
+
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2000, Month.MAY);
+    private static final int FIRST_YEAR = FIRST_MONTH.getYear();
+    private static final int YEARS = 100;
+
+    @Override
+    String getTableId() {
+        return "jasmer";
+    }
+
+    @Override
+    String getTableRowColumnTitle() {
+        return "Year";
+    }
+
+    @Override
+    String[] getColumnTitles() {
+        return MONTHS;
+    }
+
+    @Override
+    String[] getRowTitles(final int[] counts) {
+        int lastCell = counts.length - 1;
+        while (lastCell > 0 && counts[lastCell] == 0) {
+            lastCell--;
+        }
+        final String[] years = new String[lastCell / MONTHS.length + 1];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = String.valueOf(FIRST_YEAR + i);
+        }
+        return years;
+    }
+
+    @Override
+    int getCellCount() {
+        return YEARS * MONTHS.length;
+    }
+
+    @Override
+    int getCell(final Geocache cache, final LocalDate foundDate) {
+        final LocalDateTime hidden = cache.getHidden();
+        if (hidden == null || YearMonth.from(hidden).isBefore(FIRST_MONTH)) {
+            return -1;
+        }
+        final int cell = (hidden.getYear() - FIRST_YEAR) * MONTHS.length + hidden.getMonthValue() - 1;
+        return cell < getCellCount() ? cell : -1;
+    }
+
+    @Override
+    boolean exists(final int cell) {
+        return cell >= FIRST_MONTH.getMonthValue() - 1;
+    }
+}
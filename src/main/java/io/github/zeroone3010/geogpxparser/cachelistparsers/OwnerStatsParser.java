@@ -4,6 +4,8 @@ import io.github.zeroone3010.geogpxparser.Geocache;
 import io.github.zeroone3010.geogpxparser.Utility;
 import io.github.zeroone3010.geogpxparser.tabular.CellData;
 
+import java.time.LocalDate;
+
 /**
  * Parses owner statistics from the given list of caches: the number of caches
  * and different cache types each owner has.
@@ -27,7 +29,7 @@ public class OwnerStatsParser extends AbstractCacheGroupStatsParser {
     }
 
     @Override
-    String getCacheGroupKey(final Geocache cache) {
+    String getCacheGroupKey(final Geocache cache, final LocalDate foundDate) {
         return cache.getOwner();
     }
 }
@@ -1,7 +1,6 @@
 package io.github.zeroone3010.geogpxparser.cachelistparsers;
 
 import io.github.zeroone3010.geogpxparser.Geocache;
-import io.github.zeroone3010.geogpxparser.Log;
 import io.github.zeroone3010.geogpxparser.Utility;
 import io.github.zeroone3010.geogpxparser.tabular.CellData;
 import io.github.zeroone3010.geogpxparser.tabular.TableData;
@@ -9,12 +8,10 @@ import io.github.zeroone3010.geogpxparser.tabular.TableRow;
 
 import java.time.LocalDate;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A parser for finding the number of difficulty and terrain stars achieved per
@@ -26,7 +23,41 @@ public class StarChallengeParser implements ICachesToTabularDataParser {
 
     @Override
     public TableData getTabularInfo(final List<Geocache> caches) {
+        return new CacheStatsEngine(this).getTabularInfo(caches).get(0);
+    }
+
+    @Override
+    public CacheAggregator<Map<LocalDate, Summary>> newAggregator() {
+        return new CacheAggregator<Map<LocalDate, Summary>>() {
+            @Override
+            public Map<LocalDate, Summary> createState() {
+                return new HashMap<>();
+            }
+
+            @Override
+            public void accumulate(final Map<LocalDate, Summary> stats, final Geocache cache, final int foundLog,
+                                   final LocalDate foundDate) {
+                if (foundDate != null) {
+                    final Summary summary = new Summary(foundDate, cache);
+                    stats.merge(summary.getDate(), summary, Summary::sum);
+                }
+            }
+
+            @Override
+            public Map<LocalDate, Summary> merge(final Map<LocalDate, Summary> first,
+                                                 final Map<LocalDate, Summary> second) {
+                second.forEach((date, summary) -> first.merge(date, summary, Summary::sum));
+                return first;
+            }
+
+            @Override
+            public TableData finish(final Map<LocalDate, Summary> stats) {
+                return createTable(stats);
+            }
+        };
+    }
 
+    private static TableData createTable(final Map<LocalDate, Summary> stats) {
         final TableData result = new TableData("starsPerDay");
         final TableRow headerRow = new TableRow(true);
 
@@ -37,16 +68,10 @@ public class StarChallengeParser implements ICachesToTabularDataParser {
         headerRow.addCell(new CellData("Σ (D + T)"));
         result.addRow(headerRow);
 
-        final Stream<Summary> summaryStream = caches.stream()
-                .map(cache -> new Pair(Utility.findFoundLog(cache), cache))
-                .filter(Pair::isFound)
-                .map(Summary::new);
-        final Map<LocalDate, Optional<Summary>> stats = summaryStream.collect(Collectors.groupingBy(Summary::getDate, Collectors.reducing(Summary::sum)));
-
         stats.entrySet().stream()
                 .sorted(Comparator.comparing(Map.Entry::getKey))
                 .map(entry -> {
-                    final Summary summary = entry.getValue().get();
+                    final Summary summary = entry.getValue();
                     final float difficulty = summary.getDifficulty();
                     final float terrain = summary.getTerrain();
                     final TableRow row = new TableRow(false);
@@ -62,38 +87,16 @@ public class StarChallengeParser implements ICachesToTabularDataParser {
         return result;
     }
 
-    private static final class Pair {
-        private final Log log;
-        private final Geocache cache;
-
-        Pair(final Log log, final Geocache geocache) {
-            this.log = log;
-            cache = geocache;
-        }
-
-        boolean isFound() {
-            return Optional.ofNullable(log).map(l -> l.getType().countsAsFind()).orElse(false);
-        }
-
-        Log getLog() {
-            return log;
-        }
-
-        Geocache getCache() {
-            return cache;
-        }
-    }
-
-    private static final class Summary {
+    static final class Summary {
         private final LocalDate date;
         private final float difficulty;
         private final float terrain;
         private final int amount;
 
-        Summary(Pair pair) {
-            this.date = pair.getLog().getDate().toLocalDate();
-            this.difficulty = pair.getCache().getDifficulty();
-            this.terrain = pair.getCache().getTerrain();
+        Summary(final LocalDate date, final Geocache cache) {
+            this.date = date;
+            this.difficulty = cache.getDifficulty();
+            this.terrain = cache.getTerrain();
             this.amount = 1;
         }
 
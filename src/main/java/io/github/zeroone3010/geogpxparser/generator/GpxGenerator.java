@@ -0,0 +1,345 @@
+package io.github.zeroone3010.geogpxparser.generator;
+
+import io.github.zeroone3010.geogpxparser.CacheSize;
+import io.github.zeroone3010.geogpxparser.CacheType;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes synthetic Groundspeak .gpx files for testing how the parser scales. The caches follow roughly the same
+ * distributions as real ones: most of them are traditional caches with small containers and easy ratings, more of
+ * them have been hidden in recent years, and a few owners and countries have most of the caches.
+ * <p>
+ * The output is written one cache at a time, so files of any size can be generated in constant memory. The same
+ * settings and seed always produce the same file.
+ *
+ * @author Ville Saalo (http://coord.info/PR32K8V)
+ */
+public final class GpxGenerator {
+
+    private static final LocalDate FIRST_HIDDEN = LocalDate.of(2000, 5, 3);
+    private static final LocalDate LAST_DATE = LocalDate.of(2025, 12, 31);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final CacheType[] TYPES = {CacheType.Traditional, CacheType.Mystery, CacheType.Multi,
+            CacheType.EarthCache, CacheType.Event, CacheType.Letterbox, CacheType.Virtual, CacheType.Wherigo,
+            CacheType.CITO, CacheType.Webcam, CacheType.MegaEvent};
+    private static final int[] TYPE_WEIGHTS = {600, 150, 100, 40, 35, 25, 15, 15, 10, 5, 5};
+
+    private static final CacheSize[] SIZES = {CacheSize.Micro, CacheSize.Small, CacheSize.Regular, CacheSize.Other,
+            CacheSize.Large, CacheSize.Not_chosen};
+    private static final int[] SIZE_WEIGHTS = {35, 30, 20, 7, 3, 5};
+
+    private static final double[] RATINGS = {1, 1.5, 2, 2.5, 3, 3.5, 4, 4.5, 5};
+    private static final int[] RATING_WEIGHTS = {15, 25, 25, 12, 9, 5, 4, 2, 3};
+
+    private static final String[] LOG_TYPES = {"Found it", "Didn't find it", "Write note", "Needs Maintenance",
+            "Owner Maintenance"};
+    private static final int[] LOG_TYPE_WEIGHTS = {75, 8, 12, 3, 2};
+
+    private static final String[] ATTRIBUTES = {"Dogs", "Kid friendly", "Recommended at night", "Takes less than an hour",
+            "Scenic view", "Available at all times", "Parking available", "Public transportation", "Stealth required"};
+
+    private static final String[] WORDS = {"the", "cache", "is", "hidden", "near", "a", "big", "old", "tree", "by",
+            "path", "please", "replace", "it", "carefully", "after", "signing", "log", "nice", "walk", "forest",
+            "thanks", "for", "view", "muggles", "around", "container", "behind", "stone", "bridge", "river"};
+
+    private long seed = 1;
+    private int caches = 1000;
+    private int logsPerCache = 5;
+    private int descriptionLength = 1000;
+    private int owners = 1000;
+    private int finders = 10000;
+    private int countries = 50;
+
+    public GpxGenerator seed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public GpxGenerator caches(final int caches) {
+        this.caches = requireNonNegative(caches, "caches");
+        return this;
+    }
+
+    public GpxGenerator logsPerCache(final int logsPerCache) {
+        this.logsPerCache = requireNonNegative(logsPerCache, "logs per cache");
+        return this;
+    }
+
+    /**
+     * @param descriptionLength The approximate number of characters in each long description.
+     * @return This generator.
+     */
+    public GpxGenerator descriptionLength(final int descriptionLength) {
+        this.descriptionLength = requireNonNegative(descriptionLength, "description length");
+        return this;
+    }
+
+    public GpxGenerator owners(final int owners) {
+        this.owners = requirePositive(owners, "owners");
+        return this;
+    }
+
+    public GpxGenerator finders(final int finders) {
+        this.finders = requirePositive(finders, "finders");
+        return this;
+    }
+
+    public GpxGenerator countries(final int countries) {
+        this.countries = requirePositive(countries, "countries");
+        return this;
+    }
+
+    private static int requireNonNegative(final int value, final String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The number of " + name + " cannot be negative, was " + value + ".");
+        }
+        return value;
+    }
+
+    private static int requirePositive(final int value, final String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException("The number of " + name + " must be at least 1, was " + value + ".");
+        }
+        return value;
+    }
+
+    /**
+     * Writes the file. A file name that ends with .gz is gzipped.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(final File file) throws IOException {
+        try (final OutputStream output = new FileOutputStream(file)) {
+            if (file.getName().toLowerCase().endsWith(".gz")) {
+                try (final GZIPOutputStream gzip = new GZIPOutputStream(output, 64 * 1024)) {
+                    write(gzip);
+                }
+            } else {
+                write(output);
+            }
+        }
+    }
+
+    /**
+     * Writes the file into the given stream as UTF-8. The stream is flushed but not closed.
+     *
+     * @param output The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void write(final OutputStream output) throws IOException {
+        final Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        final Random random = new Random(seed);
+        out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        out.write("<gpx xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\""
+                + " version=\"1.0\" creator=\"Groundspeak Pocket Query\" xmlns=\"http://www.topografix.com/GPX/1/0\">\n");
+        out.write("  <name>Synthetic Pocket Query</name>\n");
+        out.write("  <desc>Geocache file generated by GeoGPXParser</desc>\n");
+        out.write("  <time>" + TIMESTAMP.format(LAST_DATE.atStartOfDay()) + "Z</time>\n");
+        for (int i = 0; i < caches; i++) {
+            writeCache(out, random, i);
+        }
+        out.write("</gpx>\n");
+        out.flush();
+    }
+
+    private void writeCache(final Writer out, final Random random, final int index) throws IOException {
+        final CacheType type = pick(random, TYPES, TYPE_WEIGHTS);
+        final CacheSize size = sizeOf(type, random);
+        final LocalDateTime hidden = hiddenDate(random);
+        final int owner = skewed(random, owners);
+        final String gcCode = "GC" + Integer.toString(index + 0x1000, 36).toUpperCase(Locale.ROOT);
+
+        out.write("  <wpt lat=\"" + coordinate(random, 60) + "\" lon=\"" + coordinate(random, 180) + "\">\n");
+        out.write("    <time>" + TIMESTAMP.format(hidden) + "</time>\n");
+        out.write("    <name>" + gcCode + "</name>\n");
+        out.write("    <desc>Cache " + index + " by Owner " + owner + ", " + type.getGpxDescription() + "</desc>\n");
+        out.write("    <url>http://www.geocaching.com/seek/cache_details.aspx?wp=" + gcCode + "</url>\n");
+        out.write("    <sym>Geocache</sym>\n");
+        out.write("    <type>Geocache|" + type.getGpxDescription() + "</type>\n");
+        out.write("    <groundspeak:cache id=\"" + (index + 1) + "\" available=\"" + title(random.nextInt(100) >= 5)
+                + "\" archived=\"" + title(random.nextInt(100) < 5)
+                + "\" xmlns:groundspeak=\"http://www.groundspeak.com/cache/1/0\">\n");
+        out.write("      <groundspeak:name>Cache " + index + "</groundspeak:name>\n");
+        out.write("      <groundspeak:placed_by>Owner " + owner + "</groundspeak:placed_by>\n");
+        out.write("      <groundspeak:owner id=\"" + owner + "\">Owner " + owner + "</groundspeak:owner>\n");
+        out.write("      <groundspeak:type>" + type.getGpxDescription() + "</groundspeak:type>\n");
+        out.write("      <groundspeak:container>" + size.getGpxDescription() + "</groundspeak:container>\n");
+        writeAttributes(out, random);
+        out.write("      <groundspeak:difficulty>" + rating(random) + "</groundspeak:difficulty>\n");
+        out.write("      <groundspeak:terrain>" + rating(random) + "</groundspeak:terrain>\n");
+        final int country = skewed(random, countries);
+        out.write("      <groundspeak:country>Country " + country + "</groundspeak:country>\n");
+        out.write("      <groundspeak:state>State " + country + "-" + skewed(random, 20) + "</groundspeak:state>\n");
+        out.write("      <groundspeak:short_description html=\"False\">" + words(random, 60)
+                + "</groundspeak:short_description>\n");
+        out.write("      <groundspeak:long_description html=\"True\">&lt;p&gt;" + words(random, descriptionLength)
+                + "&lt;/p&gt;</groundspeak:long_description>\n");
+        out.write("      <groundspeak:encoded_hints>" + words(random, 30) + "</groundspeak:encoded_hints>\n");
+        writeLogs(out, random, index, type, hidden);
+        out.write("      <groundspeak:travelbugs />\n");
+        out.write("    </groundspeak:cache>\n");
+        out.write("  </wpt>\n");
+    }
+
+    private static void writeAttributes(final Writer out, final Random random) throws IOException {
+        out.write("      <groundspeak:attributes>\n");
+        final int count = random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            final int attribute = random.nextInt(ATTRIBUTES.length);
+            out.write("        <groundspeak:attribute id=\"" + (attribute + 1) + "\" inc=\"" + (random.nextInt(4) > 0 ? 1 : 0)
+                    + "\">" + ATTRIBUTES[attribute] + "</groundspeak:attribute>\n");
+        }
+        out.write("      </groundspeak:attributes>\n");
+    }
+
+    /**
+     * Writes the logs from the newest to the oldest, the same way as Groundspeak does.
+     */
+    private void writeLogs(final Writer out, final Random random, final int index, final CacheType type,
+                           final LocalDateTime hidden) throws IOException {
+        out.write("      <groundspeak:logs>\n");
+        final long span = Math.max(1, ChronoUnit.MINUTES.between(hidden, LAST_DATE.atStartOfDay()));
+        LocalDateTime date = LAST_DATE.atStartOfDay();
+        for (int i = 0; i < logsPerCache; i++) {
+            date = date.minusMinutes(1 + (long) (random.nextDouble() * span / (logsPerCache + 1)));
+            out.write("        <groundspeak:log id=\"" + ((long) index * logsPerCache + i + 1) + "\">\n");
+            out.write("          <groundspeak:date>" + TIMESTAMP.format(date) + "Z</groundspeak:date>\n");
+            out.write("          <groundspeak:type>" + logType(type, random) + "</groundspeak:type>\n");
+            final int finder = skewed(random, finders);
+            out.write("          <groundspeak:finder id=\"" + finder + "\">Finder " + finder + "</groundspeak:finder>\n");
+            out.write("          <groundspeak:text encoded=\"False\">" + words(random, 20 + random.nextInt(200))
+                    + "</groundspeak:text>\n");
+            out.write("        </groundspeak:log>\n");
+        }
+        out.write("      </groundspeak:logs>\n");
+    }
+
+    private static CacheSize sizeOf(final CacheType type, final Random random) {
+        switch (type) {
+            case Event:
+            case MegaEvent:
+            case CITO:
+                return CacheSize.Not_chosen;
+            case EarthCache:
+            case Virtual:
+            case Webcam:
+                return CacheSize.Virtual;
+            default:
+                return pick(random, SIZES, SIZE_WEIGHTS);
+        }
+    }
+
+    private static String logType(final CacheType type, final Random random) {
+        final String logType = pick(random, LOG_TYPES, LOG_TYPE_WEIGHTS);
+        if (!"Found it".equals(logType)) {
+            return logType;
+        }
+        switch (type) {
+            case Event:
+            case MegaEvent:
+            case CITO:
+                return "Attended";
+            case Webcam:
+                return "Webcam Photo Taken";
+            default:
+                return logType;
+        }
+    }
+
+    /**
+     * Picks a date between the first geocache and the end of the data, with more caches hidden in the later years.
+     */
+    private static LocalDateTime hiddenDate(final Random random) {
+        final long days = ChronoUnit.DAYS.between(FIRST_HIDDEN, LAST_DATE);
+        return FIRST_HIDDEN.plusDays((long) (days * Math.sqrt(random.nextDouble()))).atTime(random.nextInt(24), 0);
+    }
+
+    /**
+     * Picks a number from 1 to the given count so that the small numbers are picked much more often than the large
+     * ones, like the most active owners and the most popular countries are.
+     */
+    private static int skewed(final Random random, final int count) {
+        final double u = random.nextDouble();
+        return 1 + (int) (count * u * u * u);
+    }
+
+    private static String rating(final Random random) {
+        final double rating = RATINGS[pickIndex(random, RATING_WEIGHTS)];
+        return rating == Math.floor(rating) ? Integer.toString((int) rating) : Double.toString(rating);
+    }
+
+    private static String coordinate(final Random random, final int limit) {
+        return String.format(Locale.ROOT, "%.6f", (random.nextDouble() * 2 - 1) * limit);
+    }
+
+    private static String title(final boolean value) {
+        return value ? "True" : "False";
+    }
+
+    private static String words(final Random random, final int length) {
+        final StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static <T> T pick(final Random random, final T[] values, final int[] weights) {
+        return values[pickIndex(random, weights)];
+    }
+
+    private static int pickIndex(final Random random, final int[] weights) {
+        int total = 0;
+        for (final int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args == null || args.length != 1) {
+            System.out.println("Usage:");
+            System.out.println("java [-Dcaches=n] [-DlogsPerCache=n] [-DdescriptionLength=n] [-Downers=n] [-Dfinders=n] [-Dcountries=n] [-Dseed=n] -cp GeoGPXParser.jar " + GpxGenerator.class.getName() + " output.(gpx|gpx.gz)");
+            System.exit(1);
+        }
+        final GpxGenerator generator = new GpxGenerator()
+                .caches(Integer.getInteger("caches", 1000))
+                .logsPerCache(Integer.getInteger("logsPerCache", 5))
+                .descriptionLength(Integer.getInteger("descriptionLength", 1000))
+                .owners(Integer.getInteger("owners", 1000))
+                .finders(Integer.getInteger("finders", 10000))
+                .countries(Integer.getInteger("countries", 50))
+                .seed(Long.getLong("seed", 1));
+        final File file = new File(args[0]);
+        System.out.println("Writing " + file + "...");
+        generator.write(file);
+        System.out.println("Done!");
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CacheSnapshotTest {
+    private static final String TEST_FILE = "src/test/java/io/github/zeroone3010/geogpxparser/test.gpx";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_parsed_caches_are_restored() throws IOException {
+        assertRestored(new GeoXMLReader(TEST_FILE).parse());
+    }
+
+    @Test
+    public void test_fixture_caches_are_restored() throws IOException {
+        assertRestored(ParserTestFixture.getGeocaches());
+    }
+
+    @Test
+    public void test_missing_values_are_restored_as_nulls() throws IOException {
+        final List<Geocache> caches = writeAndRead(Collections.singletonList(Geocache.builder().build()));
+        final Geocache cache = caches.get(0);
+        assertNull(cache.getGcCode());
+        assertNull(cache.getHidden());
+        assertNull(cache.getType());
+        assertNull(cache.getSize());
+        assertNull(cache.getHint(false));
+        assertEquals(0, cache.getLogs().size());
+    }
+
+    @Test
+    public void test_repeated_strings_are_shared() throws IOException {
+        final List<Geocache> caches = writeAndRead(new GeoXMLReader(TEST_FILE).parse());
+        assertSame(caches.get(0).getLogs().get(0).getUser(), caches.get(1).getLogs().get(1).getUser());
+    }
+
+    @Test(expected = IOException.class)
+    public void test_other_files_are_rejected() throws IOException {
+        CacheSnapshot.read(new File(TEST_FILE));
+    }
+
+    @Test
+    public void test_truncated_snapshots_are_rejected() throws IOException {
+        final File snapshot = new File(folder.getRoot(), "caches.snapshot");
+        CacheSnapshot.write(new GeoXMLReader(TEST_FILE).parse(), snapshot);
+        final byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        for (final int length : new int[]{30, bytes.length / 2, bytes.length - 1}) {
+            Files.write(snapshot.toPath(), Arrays.copyOf(bytes, length));
+            try {
+                CacheSnapshot.read(snapshot);
+                fail("A snapshot of " + length + " bytes should be rejected.");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void test_source_is_restored() throws IOException {
+        final File snapshot = new File(folder.getRoot(), "caches.snapshot");
+        CacheSnapshot.write(ParserTestFixture.getGeocaches(), snapshot, "caches.gpx 123");
+        assertEquals("caches.gpx 123", CacheSnapshot.readSource(snapshot));
+        assertEquals(5, CacheSnapshot.read(snapshot).size());
+
+        CacheSnapshot.write(ParserTestFixture.getGeocaches(), snapshot);
+        assertNull(CacheSnapshot.readSource(snapshot));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    private void assertRestored(final List<Geocache> expected) throws IOException {
+        final List<Geocache> actual = writeAndRead(expected);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(describe(expected.get(i)), describe(actual.get(i)));
+        }
+    }
+
+    private List<Geocache> writeAndRead(final List<Geocache> caches) throws IOException {
+        final File snapshot = new File(folder.getRoot(), "caches.snapshot");
+        CacheSnapshot.write(new ArrayList<>(caches), snapshot);
+        assertTrue(Files.size(snapshot.toPath()) > 0);
+        return CacheSnapshot.read(snapshot);
+    }
+}
@@ -17,5 +17,15 @@ public class CacheTypeTest {
     @Test
     public void getByGpxDescription_with_nonexisting_type() {
         assertEquals(CacheType.Other, CacheType.getByGpxDescription("Foobar"));
+        assertEquals(CacheType.Other, CacheType.getByGpxDescription("Traditional Cach"));
+        assertEquals(CacheType.Other, CacheType.getByGpxDescription(""));
+        assertEquals(CacheType.Other, CacheType.getByGpxDescription(null));
+    }
+
+    @Test
+    public void getByGpxDescription_with_other_char_sequences() {
+        Arrays.asList(CacheType.values()).stream().filter(c -> c.getGpxDescription() != null).forEach(c -> {
+            assertEquals(c, CacheType.getByGpxDescription(new StringBuilder(c.getGpxDescription())));
+        });
     }
 }
@@ -1,25 +1,66 @@
 package io.github.zeroone3010.geogpxparser;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
- * This is the unit test class for the GeoGPXParser class.
+ * This is the unit test class for the GeoGPXParser class. All the tests are run against every parsing engine.
  */
+@RunWith(Parameterized.class)
 public class GeoXMLReaderTest {
+    private static final String TEST_FILE = "src/test/java/io/github/zeroone3010/geogpxparser/test.gpx";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final GeoXMLReader.Engine engine;
     Geocache cache1;
     Geocache cache2;
     Geocache cache3;
 
+    public GeoXMLReaderTest(final GeoXMLReader.Engine engine) {
+        this.engine = engine;
+    }
+
+    @Parameters
+    public static Collection<Object[]> engines() {
+        return Arrays.asList(new Object[][]{{GeoXMLReader.Engine.DOM}, {GeoXMLReader.Engine.STAX},
+                {GeoXMLReader.Engine.MAPPED}});
+    }
+
     @Before
     public void loadCaches() {
-        final GeoXMLReader reader = new GeoXMLReader("src/test/java/io/github/zeroone3010/geogpxparser/test.gpx");
+        final GeoXMLReader reader = new GeoXMLReader(TEST_FILE).engine(engine);
         final List<Geocache> caches = reader.parse();
         assertNotNull(caches);
         assertEquals(3, caches.size());
@@ -187,9 +228,244 @@ public class GeoXMLReaderTest {
         assertEquals("TNLN.", logs2.get(1).getText());
     }
 
+    @Test
+    public void test_repeated_strings_are_shared() {
+        assertSame(cache1.getLogs().get(0).getUser(), cache2.getLogs().get(0).getUser());
+        assertSame(cache2.getLogs().get(0).getUser(), cache2.getLogs().get(1).getUser());
+    }
+
     @Test
     public void test_empty_logs3() {
         assertNotNull(cache3.getLogs());
         assertEquals(0, cache3.getLogs().size());
     }
+
+    @Test
+    public void test_parallel_directory_keeps_file_order() throws IOException {
+        final String original = new String(Files.readAllBytes(Paths.get(TEST_FILE)), StandardCharsets.UTF_8);
+        for (int i = 0; i < 6; i++) {
+            final String content = original.replace("<name>GC", "<name>GC" + i + "x");
+            Files.write(new File(folder.getRoot(), "file" + i + ".gpx").toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(new File(folder.getRoot(), "file3b.gpx").toPath(), "<gpx><wpt".getBytes(StandardCharsets.UTF_8));
+
+        final List<String> sequential = gcCodes(new GeoXMLReader(folder.getRoot().getPath()).engine(engine).parse());
+        final List<String> parallel = gcCodes(new GeoXMLReader(folder.getRoot().getPath()).engine(engine).threads(4).parse());
+        final List<String> pipelined = gcCodes(new GeoXMLReader(folder.getRoot().getPath()).engine(engine).threads(2)
+                .pipelined(true).parse());
+
+        assertEquals(18, sequential.size());
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, pipelined);
+        assertEquals("GC0x123ABC", parallel.get(0));
+        assertEquals("GC5xIJKL", parallel.get(17));
+    }
+
+    @Test
+    public void test_stream_returns_same_caches_as_parse() {
+        try (final Stream<Geocache> stream = new GeoXMLReader(TEST_FILE).engine(engine).stream()) {
+            assertEquals(Arrays.asList("GC123ABC", "GC456DEF", "GCIJKL"), gcCodes(stream.collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    public void test_stream_stops_early() throws IOException {
+        final byte[] content = Files.readAllBytes(Paths.get(TEST_FILE));
+        Files.write(new File(folder.getRoot(), "a.gpx").toPath(), content);
+        Files.write(new File(folder.getRoot(), "b.gpx").toPath(), "<gpx><wpt".getBytes(StandardCharsets.UTF_8));
+
+        try (final Stream<Geocache> stream = new GeoXMLReader(folder.getRoot().getPath()).engine(engine).stream()) {
+            assertEquals(Arrays.asList("GC123ABC", "GC456DEF"), gcCodes(stream.limit(2).collect(Collectors.toList())));
+        }
+        try (final Stream<Geocache> stream = new GeoXMLReader(folder.getRoot().getPath()).engine(engine).stream()) {
+            assertEquals(3, stream.count());
+        }
+    }
+
+    @Test
+    public void test_large_file_matches_dom_engine() throws IOException {
+        final String original = new String(Files.readAllBytes(Paths.get(TEST_FILE)), StandardCharsets.UTF_8);
+        final int firstWaypoint = original.indexOf("<wpt ");
+        final int afterLastWaypoint = original.lastIndexOf("</wpt>") + "</wpt>".length();
+        final StringBuilder content = new StringBuilder(original.substring(0, firstWaypoint));
+        for (int i = 0; i < 100; i++) {
+            content.append(original.substring(firstWaypoint, afterLastWaypoint).replace("<name>GC", "<name>GC" + i + "x"));
+        }
+        content.append(original.substring(afterLastWaypoint));
+        final File large = new File(folder.getRoot(), "large.gpx");
+        Files.write(large.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        final List<Geocache> expected = new GeoXMLReader(large.getPath()).engine(GeoXMLReader.Engine.DOM).parse();
+        final List<Geocache> actual = new GeoXMLReader(large.getPath()).engine(engine).parse();
+        assertEquals(300, actual.size());
+        assertEquals(gcCodes(expected), gcCodes(actual));
+        assertEquals(expected.get(299).getLogs().size(), actual.get(299).getLogs().size());
+        final List<Geocache> pipelined = new GeoXMLReader(large.getPath()).engine(engine).pipelined(true).parse();
+        assertEquals(gcCodes(expected), gcCodes(pipelined));
+    }
+
+    @Test
+    public void test_caches_before_a_malformed_waypoint_are_kept() throws IOException {
+        final File syntaxError = largeFileWithOneChange("syntax.gpx", "<name>GC50x456DEF</name>", "<name>GC50x456DEF</name><x a=1/>");
+        final List<Geocache> caches = new GeoXMLReader(syntaxError.getPath()).engine(engine).parse();
+        if (engine == GeoXMLReader.Engine.DOM) {
+            assertEquals(0, caches.size());
+        } else {
+            assertEquals(151, caches.size());
+            assertEquals("GC50x123ABC", caches.get(150).getGcCode());
+        }
+
+        final File malformedNumber = largeFileWithOneChange("number.gpx", "lat=\"59.8765\"", "lat=\"abc\"");
+        final List<Geocache> beforeNumber = new GeoXMLReader(malformedNumber.getPath()).engine(engine).parse();
+        assertEquals(151, beforeNumber.size());
+        assertEquals("GC50x123ABC", beforeNumber.get(150).getGcCode());
+    }
+
+    /**
+     * @return A file of 100 copies of the test file's waypoints, with the given change made to the 51st copy only.
+     */
+    private File largeFileWithOneChange(final String name, final String target, final String replacement) throws IOException {
+        final String original = new String(Files.readAllBytes(Paths.get(TEST_FILE)), StandardCharsets.UTF_8);
+        final int firstWaypoint = original.indexOf("<wpt ");
+        final int afterLastWaypoint = original.lastIndexOf("</wpt>") + "</wpt>".length();
+        final StringBuilder content = new StringBuilder(original.substring(0, firstWaypoint));
+        for (int i = 0; i < 100; i++) {
+            final String waypoints = original.substring(firstWaypoint, afterLastWaypoint).replace("<name>GC", "<name>GC" + i + "x");
+            content.append(i == 50 ? waypoints.replace(target, replacement) : waypoints);
+        }
+        content.append(original.substring(afterLastWaypoint));
+        final File large = new File(folder.getRoot(), name);
+        Files.write(large.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return large;
+    }
+
+    @Test
+    public void test_fields_leaves_out_unrequested_parts() {
+        final List<Geocache> caches = new GeoXMLReader(TEST_FILE).engine(engine)
+                .fields(EnumSet.of(GeocacheField.GC_CODE, GeocacheField.TYPE, GeocacheField.DIFFICULTY, GeocacheField.LOGS))
+                .parse();
+        final Geocache cache = caches.get(1);
+        assertEquals("GC456DEF", cache.getGcCode());
+        assertEquals(CacheType.Traditional, cache.getType());
+        assertEquals(3.5, cache.getDifficulty(), 0.0001);
+        assertEquals(0, cache.getTerrain(), 0.0001);
+        assertEquals(0, cache.getLatitude(), 0.0001);
+        assertNull(cache.getName());
+        assertNull(cache.getHidden());
+        assertNull(cache.getLongDescription());
+        assertNull(cache.getHint(false));
+        assertEquals(0, cache.getAttributes().size());
+        assertEquals(2, cache.getLogs().size());
+        assertEquals(LogType.FOUND, cache.getLogs().get(1).getType());
+        assertEquals("Example user", cache.getLogs().get(1).getUser());
+        assertNull(cache.getLogs().get(1).getText());
+    }
+
+    @Test
+    public void test_compressed_files() throws IOException {
+        final byte[] content = Files.readAllBytes(Paths.get(TEST_FILE));
+        final String additionalWaypoints = "<?xml version=\"1.0\" encoding=\"utf-8\"?><gpx>"
+                + "<wpt lat=\"51.5\" lon=\"-0.07\"><time>2001-10-27T07:00:00Z</time><name>PK123ABC</name></wpt></gpx>";
+        try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(folder.getRoot(), "a.zip")))) {
+            zip.putNextEntry(new ZipEntry("1234.gpx"));
+            zip.write(content);
+            zip.putNextEntry(new ZipEntry("1234-wpts.gpx"));
+            zip.write(additionalWaypoints.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("readme.txt"));
+            zip.write("Not a GPX file".getBytes(StandardCharsets.UTF_8));
+        }
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(new File(folder.getRoot(), "b.gpx.gz")))) {
+            gzip.write(content);
+        }
+
+        final List<Geocache> caches = new GeoXMLReader(folder.getRoot().getPath()).engine(engine).threads(2).parse();
+        assertEquals(Arrays.asList("GC123ABC", "GC456DEF", "GCIJKL", "GC123ABC", "GC456DEF", "GCIJKL"), gcCodes(caches));
+        assertEquals("TNLN.", caches.get(4).getLogs().get(1).getText());
+
+        final List<Geocache> pipelined = new GeoXMLReader(folder.getRoot().getPath()).engine(engine).pipelined(true).parse();
+        assertEquals(gcCodes(caches), gcCodes(pipelined));
+    }
+
+    @Test(timeout = 10000)
+    public void test_prefetching_reports_a_missing_archive_entry() throws IOException {
+        final File archive = new File(folder.getRoot(), "a.zip");
+        writeArchive(archive, "1234.gpx");
+        final GpxInput input = GpxInput.list(archive.getPath()).get(0);
+        writeArchive(archive, "5678.gpx");
+
+        try (final InputStream stream = new PrefetchingInputStream(input)) {
+            stream.read();
+            fail("The entry should be missing.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("1234.gpx"));
+        }
+    }
+
+    private static void writeArchive(final File archive, final String entryName) throws IOException {
+        try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(Files.readAllBytes(Paths.get(TEST_FILE)));
+        }
+    }
+
+    @Test
+    public void test_off_heap_texts() {
+        for (final GeoXMLReader.TextStorage textStorage : GeoXMLReader.TextStorage.values()) {
+            final List<Geocache> caches = new GeoXMLReader(TEST_FILE).engine(engine).textStorage(textStorage).parse();
+            for (int i = 0; i < caches.size(); i++) {
+                assertEquals(ParserTestFixture.describe(Arrays.asList(cache1, cache2, cache3).get(i)),
+                        ParserTestFixture.describe(caches.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void test_metrics() throws IOException {
+        final String original = new String(Files.readAllBytes(Paths.get(TEST_FILE)), StandardCharsets.UTF_8);
+        Files.write(new File(folder.getRoot(), "a.gpx").toPath(), original.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(folder.getRoot(), "b.gpx").toPath(),
+                original.replace("<time>", "<time>x").getBytes(StandardCharsets.UTF_8));
+
+        final GeoXMLReader reader = new GeoXMLReader(folder.getRoot().getPath()).engine(engine);
+        assertNull(reader.getMetrics());
+        reader.parse();
+        final ParseMetrics metrics = reader.getMetrics();
+
+        assertEquals(2, metrics.getFiles().size());
+        final ParseMetrics.FileMetrics first = metrics.getFiles().get(0);
+        assertTrue(first.getFile().endsWith("a.gpx"));
+        assertEquals(original.getBytes(StandardCharsets.UTF_8).length, first.getBytes());
+        assertEquals(3, first.getCaches());
+        assertEquals(cache1.getLogs().size() + cache2.getLogs().size(), first.getLogs());
+        assertEquals(0, first.getFailedTimestamps());
+        assertEquals(3, metrics.getFiles().get(1).getFailedTimestamps());
+        assertEquals(6, metrics.getCaches());
+        assertTrue(metrics.getWallTime().toNanos() > 0);
+        assertTrue(metrics.toJson().contains("\"failedTimestamps\": 3,"));
+    }
+
+    @Test
+    public void test_log_retention() {
+        final List<Geocache> firstFinds = new GeoXMLReader(TEST_FILE).engine(engine)
+                .logRetention(LogRetention.firstFind()).parse();
+        assertEquals(1, firstFinds.get(1).getLogs().size());
+        assertEquals(456, firstFinds.get(1).getLogs().get(0).getId());
+        assertEquals("TNLN.", firstFinds.get(1).getLogs().get(0).getText());
+        assertEquals(Utility.findFoundLog(cache2).getId(), Utility.findFoundLog(firstFinds.get(1)).getId());
+
+        final List<Geocache> latest = new GeoXMLReader(TEST_FILE).engine(engine)
+                .logRetention(LogRetention.all().latest(1)).parse();
+        assertEquals(1, latest.get(1).getLogs().size());
+        assertEquals(450, latest.get(1).getLogs().get(0).getId());
+        assertEquals(1, latest.get(0).getLogs().size());
+
+        final List<Geocache> byFinder = new GeoXMLReader(TEST_FILE).engine(engine)
+                .logRetention(LogRetention.all().byFinder("Someone else")).parse();
+        assertEquals(0, byFinder.get(0).getLogs().size());
+        assertEquals(0, byFinder.get(1).getLogs().size());
+    }
+
+    private static List<String> gcCodes(final List<Geocache> caches) {
+        return caches.stream().map(Geocache::getGcCode).collect(Collectors.toList());
+    }
 }
@@ -2,7 +2,12 @@ package io.github.zeroone3010.geogpxparser;
 
 import org.junit.Test;
 
+import java.time.LocalDateTime;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class GeocacheTest {
 
@@ -41,4 +46,58 @@ public class GeocacheTest {
         final String result = cache.getHint(decrypted);
         assertEquals(expResult, result);
     }
+
+    @Test
+    public void compact_fields_keep_their_values() {
+        for (final CacheType type : CacheType.values()) {
+            for (final CacheSize size : CacheSize.values()) {
+                for (int halfStars = 2; halfStars <= 10; halfStars++) {
+                    final LocalDateTime hidden = LocalDateTime.of(2000 + halfStars, halfStars, halfStars, halfStars, 30);
+                    final Geocache cache = Geocache.builder().type(type).size(size)
+                            .difficulty(halfStars / 2f).terrain((12 - halfStars) / 2f)
+                            .latitude(60.123456).longitude(-24.1234567).hidden(hidden)
+                            .available(halfStars % 2 == 0).archived(halfStars % 3 == 0).build();
+                    assertEquals(type, cache.getType());
+                    assertEquals(size, cache.getSize());
+                    assertEquals(halfStars / 2f, cache.getDifficulty(), 0);
+                    assertEquals((12 - halfStars) / 2f, cache.getTerrain(), 0);
+                    assertEquals(60.123456, cache.getLatitude(), 0);
+                    assertEquals(-24.1234567, cache.getLongitude(), 0);
+                    assertEquals(hidden, cache.getHidden());
+                    assertEquals(halfStars % 2 == 0, cache.isAvailable());
+                    assertEquals(halfStars % 3 == 0, cache.isArchived());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unset_fields_stay_unset() {
+        final Geocache cache = Geocache.builder().build();
+        assertNull(cache.getType());
+        assertNull(cache.getSize());
+        assertNull(cache.getHidden());
+        assertEquals(0, cache.getDifficulty(), 0);
+        assertEquals(0, cache.getLatitude(), 0);
+        assertFalse(cache.isAvailable());
+        assertTrue(cache.getLogs().isEmpty());
+        assertTrue(cache.getAttributes().isEmpty());
+    }
+
+    @Test
+    public void values_that_do_not_fit_the_compact_fields_are_kept_exactly() {
+        final LocalDateTime hidden = LocalDateTime.of(2011, 12, 30, 11, 22, 33, 440_000_000);
+        final Geocache cache = Geocache.builder().latitude(Math.PI).longitude(-0.0).hidden(hidden)
+                .difficulty(1.25f).terrain(Float.NaN).build();
+        assertEquals(Math.PI, cache.getLatitude(), 0);
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(cache.getLongitude()));
+        assertEquals(hidden, cache.getHidden());
+        assertEquals(1.25f, cache.getDifficulty(), 0);
+        assertTrue(Float.isNaN(cache.getTerrain()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void logs_cannot_be_modified() {
+        Geocache.builder().addLog(Log.builder().build()).build().getLogs().clear();
+    }
 }
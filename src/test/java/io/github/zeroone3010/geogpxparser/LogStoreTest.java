@@ -0,0 +1,70 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LogStoreTest {
+
+    private static final List<Log> LOGS = Arrays.asList(
+            Log.builder().id(1).type(LogType.DNF).user("Alice").date(LocalDateTime.of(2010, 1, 2, 3, 4, 5))
+                    .text("Not found").build(),
+            Log.builder().id(2).type(LogType.FOUND).user("Bob").build(),
+            Log.builder().id(3).type(null).user(null).date(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500)).build(),
+            Log.builder().id(4).type(LogType.ATTENDED).user("Alice").date(LocalDateTime.of(2011, 12, 30, 11, 22))
+                    .build());
+
+    @Test
+    public void logs_keep_their_values() {
+        final LogStore store = LogStore.of(LOGS, new SymbolTable());
+        assertEquals(LOGS.size(), store.size());
+        for (int i = 0; i < LOGS.size(); i++) {
+            assertEquals(LOGS.get(i).getId(), store.get(i).getId());
+            assertEquals(LOGS.get(i).getDate(), store.get(i).getDate());
+            assertEquals(LOGS.get(i).getType(), store.get(i).getType());
+            assertEquals(LOGS.get(i).getUser(), store.get(i).getUser());
+            assertEquals(LOGS.get(i).getText(), store.get(i).getText());
+        }
+        assertSame(store.get(0).getUser(), store.get(3).getUser());
+    }
+
+    @Test
+    public void finders_are_kept_without_a_symbol_table() {
+        final LogStore store = LogStore.of(LOGS, null);
+        for (int i = 0; i < LOGS.size(); i++) {
+            assertEquals(LOGS.get(i).getUser(), store.get(i).getUser());
+        }
+    }
+
+    @Test
+    public void first_found_log_needs_a_find_with_a_date() {
+        final LogStore store = LogStore.of(LOGS, new SymbolTable());
+        assertEquals(3, store.findFirstFound());
+        assertEquals(LocalDate.of(2011, 12, 30), store.getLocalDate(3));
+        assertEquals(LocalDate.of(1969, 12, 31), store.getLocalDate(2));
+        assertNull(store.getLocalDate(1));
+        assertEquals(-1, LogStore.EMPTY.findFirstFound());
+    }
+
+    @Test
+    public void found_date_matches_found_log() {
+        final Geocache.Builder builder = Geocache.builder();
+        LOGS.forEach(builder::addLog);
+        final Geocache cache = builder.build();
+        assertEquals(4, Utility.findFoundLog(cache).getId());
+        assertEquals(Utility.findFoundLog(cache).getDate().toLocalDate(), Utility.findFoundDate(cache));
+        assertNull(Utility.findFoundDate(Geocache.builder().build()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void logs_cannot_be_added() {
+        LogStore.of(LOGS, new SymbolTable()).add(LOGS.get(0));
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.List;
+
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParseCacheTest {
+    private static final String TEST_FILE = "src/test/java/io/github/zeroone3010/geogpxparser/test.gpx";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File gpx;
+    private File directory;
+
+    @Before
+    public void copyTestFile() throws IOException {
+        gpx = folder.newFile("caches.gpx");
+        Files.copy(Paths.get(TEST_FILE), gpx.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        directory = new File(folder.getRoot(), "cache");
+    }
+
+    @Test
+    public void test_stored_caches_are_identical_to_parsed_ones() {
+        final List<Geocache> parsed = new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        final List<Geocache> stored = new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        assertEquals(3, stored.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(describe(parsed.get(i)), describe(stored.get(i)));
+        }
+    }
+
+    @Test
+    public void test_unchanged_file_is_not_parsed_again() throws IOException {
+        new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        replaceKeepingSizeAndTime("GC123ABC", "GC999XYZ");
+
+        final List<Geocache> caches = new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        assertEquals("GC123ABC", caches.get(0).getGcCode());
+    }
+
+    @Test
+    public void test_checksum_detects_changed_content() throws IOException {
+        new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory).checksums(true)).parse();
+        replaceKeepingSizeAndTime("GC123ABC", "GC999XYZ");
+
+        final List<Geocache> caches = new GeoXMLReader(gpx.getPath())
+                .parseCache(new ParseCache(directory).checksums(true)).parse();
+        assertEquals("GC999XYZ", caches.get(0).getGcCode());
+    }
+
+    @Test
+    public void test_modified_file_is_parsed_again() throws IOException {
+        new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        replaceKeepingSizeAndTime("GC123ABC", "GC999XYZ");
+        assertTrue(gpx.setLastModified(gpx.lastModified() - 60_000));
+
+        final List<Geocache> caches = new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        assertEquals("GC999XYZ", caches.get(0).getGcCode());
+    }
+
+    @Test
+    public void test_different_fields_are_parsed_again() {
+        new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory))
+                .fields(EnumSet.of(GeocacheField.GC_CODE)).parse();
+
+        final List<Geocache> caches = new GeoXMLReader(gpx.getPath()).parseCache(new ParseCache(directory)).parse();
+        assertEquals("Cache I name", caches.get(0).getName());
+    }
+
+    @Test
+    public void test_clear() throws IOException {
+        final ParseCache parseCache = new ParseCache(directory);
+        new GeoXMLReader(gpx.getPath()).parseCache(parseCache).parse();
+        assertEquals(1, directory.list().length);
+        // Left behind by an interrupted store:
+        assertTrue(new File(directory, "parse123.tmp").createNewFile());
+
+        parseCache.clear();
+        assertEquals(0, directory.list().length);
+    }
+
+    private void replaceKeepingSizeAndTime(final String original, final String replacement) throws IOException {
+        final long modified = gpx.lastModified();
+        final String content = new String(Files.readAllBytes(gpx.toPath()), StandardCharsets.UTF_8);
+        Files.write(gpx.toPath(), content.replace(original, replacement).getBytes(StandardCharsets.UTF_8));
+        assertTrue(gpx.setLastModified(modified));
+    }
+}
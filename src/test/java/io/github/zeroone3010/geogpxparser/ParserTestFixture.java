@@ -126,4 +126,22 @@ public final class ParserTestFixture {
 
         return Arrays.asList(cache1, cache2, cache3, cache4, cache5);
     }
+
+    /**
+     * Lists all the details of the given cache, for comparing caches that do not implement equals.
+     */
+    public static String describe(final Geocache cache) {
+        final StringBuilder sb = new StringBuilder().append(cache.getGcCode())
+                .append(cache.getLatitude()).append(cache.getLongitude()).append(cache.getCountry())
+                .append(cache.getState()).append(cache.getHidden()).append(cache.getType()).append(cache.getSize())
+                .append(cache.getDifficulty()).append(cache.getTerrain()).append(cache.getName())
+                .append(cache.getOwner()).append(cache.getShortDescription()).append(cache.getLongDescription())
+                .append(cache.getHint(true)).append(cache.isAvailable()).append(cache.isArchived())
+                .append(cache.getAttributes());
+        for (final Log log : cache.getLogs()) {
+            sb.append(log.getId()).append(log.getUser()).append(log.getDate()).append(log.getType())
+                    .append(log.getText());
+        }
+        return sb.toString();
+    }
 }
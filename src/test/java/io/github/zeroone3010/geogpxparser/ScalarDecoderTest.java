@@ -0,0 +1,83 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the ScalarDecoder gives the same results as the JDK methods it replaced.
+ */
+public class ScalarDecoderTest {
+
+    private static final String[] DECIMALS = {"0", "1", "1.5", "5", "-0.0", "60.123456", "-24.987654", "+3.25",
+            ".5", "5.", "179.9999999", "0.1", "0.30000000000000004", "123456789012345678", "1e3", "1.5E-2",
+            "12345678.9", "9007199254740993", "0.00000000000000000000001"};
+    private static final String[] INVALID = {"", "-", ".", "1.2.3", "abc", "1,5", "--1"};
+
+    @Test
+    public void parseDouble_matches_jdk() {
+        for (final String text : DECIMALS) {
+            assertEquals(text, Double.parseDouble(text), ScalarDecoder.parseDouble(slice(text)), 0);
+        }
+    }
+
+    @Test
+    public void parseFloat_matches_jdk() {
+        for (final String text : DECIMALS) {
+            assertEquals(text, Float.parseFloat(text), ScalarDecoder.parseFloat(slice(text)), 0);
+        }
+    }
+
+    @Test
+    public void parse_random_coordinates_matches_jdk() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final String text = String.format(Locale.ROOT, "%." + random.nextInt(10) + "f", random.nextDouble() * 360 - 180);
+            assertEquals(text, Double.doubleToRawLongBits(Double.parseDouble(text)),
+                    Double.doubleToRawLongBits(ScalarDecoder.parseDouble(text)));
+            assertEquals(text, Float.floatToRawIntBits(Float.parseFloat(text)),
+                    Float.floatToRawIntBits(ScalarDecoder.parseFloat(text)));
+        }
+    }
+
+    @Test
+    public void invalid_numbers_throw() {
+        for (final String text : INVALID) {
+            try {
+                ScalarDecoder.parseDouble(slice(text));
+                fail(text);
+            } catch (NumberFormatException expected) {
+            }
+            try {
+                ScalarDecoder.parseLong(slice(text));
+                fail(text);
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void parseLong_matches_jdk() {
+        for (final String text : new String[]{"0", "1", "-1", "+7", "123456789012", "9223372036854775807",
+                "-9223372036854775808"}) {
+            assertEquals(text, Long.parseLong(text), ScalarDecoder.parseLong(slice(text)));
+        }
+    }
+
+    @Test
+    public void parseBoolean_matches_jdk() {
+        for (final String text : new String[]{"True", "true", "TRUE", "False", "false", "1", "", "yes", "Truth"}) {
+            assertEquals(text, Boolean.parseBoolean(text), ScalarDecoder.parseBoolean(slice(text)));
+        }
+    }
+
+    private static CharSequence slice(final String text) {
+        final CharSlice slice = new CharSlice();
+        slice.append(("xx" + text).toCharArray(), 2, text.length());
+        return slice;
+    }
+}
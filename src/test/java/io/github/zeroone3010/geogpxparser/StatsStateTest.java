@@ -0,0 +1,87 @@
+package io.github.zeroone3010.geogpxparser;
+
+import io.github.zeroone3010.geogpxparser.cachelistparsers.CacheListParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.CacheStatsEngine;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.CountryStatsParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.DateStatsParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.OwnerStatsParser;
+import io.github.zeroone3010.geogpxparser.cachelistparsers.StarChallengeParser;
+import io.github.zeroone3010.geogpxparser.tabular.TableData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the StatsState class.
+ */
+public class StatsStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_tables_of_updates_are_identical_to_tables_of_all_caches() throws IOException {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final File file = new File(folder.getRoot(), "stats.state");
+
+        final StatsState first = StatsState.load(file);
+        first.update(caches.subList(0, 3));
+        first.save(file);
+        final StatsState second = StatsState.load(file);
+        second.update(caches.subList(3, caches.size()));
+        second.save(file);
+
+        assertTables(tables(caches), tables(StatsState.load(file).getCaches()));
+    }
+
+    @Test
+    public void test_imported_cache_replaces_the_earlier_one() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final Geocache changed = Geocache.builder()
+                .gcCode(caches.get(0).getGcCode())
+                .type(CacheType.Multi)
+                .owner("Someone else")
+                .country(caches.get(0).getCountry())
+                .build();
+
+        final StatsState state = new StatsState();
+        state.update(caches);
+        state.update(Collections.singletonList(changed));
+
+        assertEquals(caches.size(), state.size());
+        assertEquals("Someone else", state.getCaches().get(0).getOwner());
+        assertEquals(CacheType.Multi, state.getCaches().get(0).getType());
+    }
+
+    @Test
+    public void test_removed_cache_is_left_out_of_the_tables() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final StatsState state = new StatsState();
+        state.update(caches);
+
+        assertTrue(state.remove(caches.get(4).getGcCode()));
+        assertFalse(state.remove(caches.get(4).getGcCode()));
+        assertTables(tables(caches.subList(0, 4)), tables(state.getCaches()));
+    }
+
+    private static List<TableData> tables(final List<Geocache> caches) {
+        return new CacheStatsEngine(new CacheListParser(), new OwnerStatsParser(), new CountryStatsParser(),
+                new StarChallengeParser(), new DateStatsParser()).getTabularInfo(caches);
+    }
+
+    private static void assertTables(final List<TableData> expected, final List<TableData> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRows(), actual.get(i).getRows());
+        }
+    }
+}
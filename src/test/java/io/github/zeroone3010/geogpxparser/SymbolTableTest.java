@@ -0,0 +1,39 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SymbolTableTest {
+    @Test
+    public void intern_returns_first_instance() {
+        final SymbolTable table = new SymbolTable();
+        final String first = new String("Finland");
+        final String second = new String("Finland");
+
+        assertSame(first, table.intern(first));
+        assertSame(first, table.intern(second));
+        assertEquals("Sweden", table.intern("Sweden"));
+        assertNull(table.intern(null));
+
+        assertEquals(1, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    public void encode_gives_stable_codes() {
+        final SymbolTable table = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, table.encode("Finder " + i));
+        }
+        assertEquals(42, table.encode(new String("Finder 42")));
+        assertEquals("Finder 999", table.decode(999));
+        assertEquals(-1, table.encode(null));
+        assertNull(table.decode(-1));
+
+        assertEquals(1, table.getHits());
+        assertEquals(1000, table.getMisses());
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TextArenaTest {
+
+    private static final String SHORT_TEXT = "Hyvää päivää! 😀";
+
+    @Test
+    public void test_texts_are_restored() {
+        final TextArena arena = new TextArena(false);
+        final CharSequence stored = arena.store(SHORT_TEXT);
+        assertEquals(SHORT_TEXT, stored.toString());
+        assertEquals(SHORT_TEXT.length(), stored.length());
+        assertEquals('ä', stored.charAt(4));
+        assertNull(arena.store(null));
+    }
+
+    @Test
+    public void test_compressed_texts_are_restored() {
+        final TextArena arena = new TextArena(true);
+        final String text = repeat(SHORT_TEXT, 100);
+        final CharSequence stored = arena.store(text);
+        assertEquals(text, stored.toString());
+        assertTrue(arena.getSize() < text.length());
+    }
+
+    @Test
+    public void test_texts_can_be_read_by_character() {
+        final TextArena arena = new TextArena(true);
+        final String text = repeat("0123456789", 200_000);
+        final CharSequence stored = arena.store(text);
+        final StringBuilder copy = new StringBuilder();
+        for (int i = 0; i < stored.length(); i++) {
+            copy.append(stored.charAt(i));
+        }
+        assertEquals(text, copy.toString());
+        assertEquals("2345", stored.subSequence(12, 16).toString());
+        assertEquals(text, stored.toString());
+    }
+
+    @Test
+    public void test_texts_larger_than_a_block() {
+        final TextArena arena = new TextArena(false);
+        final CharSequence first = arena.store(SHORT_TEXT);
+        final String large = repeat("0123456789", 200_000);
+        final CharSequence second = arena.store(large);
+        final CharSequence third = arena.store(SHORT_TEXT);
+        assertEquals(SHORT_TEXT, first.toString());
+        assertEquals(large, second.toString());
+        assertEquals(SHORT_TEXT, third.toString());
+    }
+
+    private static String repeat(final String text, final int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.zeroone3010.geogpxparser;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that the TimestampParser gives the same results as the plain java.time based parsing it replaced.
+ */
+public class TimestampParserTest {
+
+    private static final String[] TIMESTAMPS = {
+            "2010-07-08T19:00:00Z",
+            "2010-02-28T07:00:00",
+            "2011-12-30T11:22:33.44Z",
+            "2011-12-30T11:22:33.123456789Z",
+            "2011-12-30T11:22:33.1234567891Z",
+            "2011-12-30T11:22:33.Z",
+            "2010-07-08T19:00:00+02:00",
+            "2010-07-08T19:00:00-07:30",
+            "2010-07-08T19:00:00.5-07:00",
+            "2010-07-08T19:00:00+18:00",
+            "2010-07-08T19:00:00+19:00",
+            "2010-07-08T19:00:00+0200",
+            "2010-07-08T19:00:00+02:00:00",
+            "2010-07-08T19:00:00+02:00[Europe/Helsinki]",
+            "2010-07-08T19:00Z",
+            "2010-07-08T19:00",
+            "2012-02-29T00:00:00Z",
+            "2011-02-29T00:00:00Z",
+            "2010-13-01T00:00:00Z",
+            "2010-12-32T00:00:00Z",
+            "2010-12-31T24:00:00Z",
+            "2010-12-31T23:60:00Z",
+            "2010-12-31T23:59:60Z",
+            "2010-12-31T23:59:59ZZ",
+            "2010-12-31 23:59:59Z",
+            "2010/12/31T23:59:59Z",
+            "201O-12-31T23:59:59Z",
+            "+12010-12-31T23:59:59Z",
+            "2010-12-31",
+            "",
+            "garbage"
+    };
+
+    @Test
+    public void parse_matches_java_time() {
+        for (final String timestamp : TIMESTAMPS) {
+            assertEquals(timestamp, parseWithJavaTime(timestamp), TimestampParser.parse(timestamp));
+        }
+    }
+
+    @Test
+    public void parse_fractional_seconds_without_zone() {
+        // The java.time based parsing only accepted a missing zone when there were no fractional seconds:
+        assertNull(parseWithJavaTime("2010-02-28T07:00:00.25"));
+        assertEquals(LocalDateTime.of(2010, 2, 28, 7, 0, 0, 250_000_000), TimestampParser.parse("2010-02-28T07:00:00.25"));
+    }
+
+    @Test
+    public void parse_keeps_local_time_of_offset() {
+        assertEquals(LocalDateTime.of(2010, 7, 8, 19, 0), TimestampParser.parse("2010-07-08T19:00:00-05:00"));
+    }
+
+    /**
+     * The original implementation of the timestamp parsing.
+     */
+    private static LocalDateTime parseWithJavaTime(final String xmlTimeString) {
+        try {
+            return ZonedDateTime.parse(xmlTimeString).toLocalDateTime();
+        } catch (DateTimeParseException tryFormatWithTimeZoneMissing) {
+            if (xmlTimeString.matches("\\d\\d\\d\\d-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d")) {
+                try {
+                    return ZonedDateTime.parse(xmlTimeString + "Z").toLocalDateTime();
+                } catch (IllegalArgumentException ignore) {
+                }
+            }
+        }
+        return null;
+    }
+}
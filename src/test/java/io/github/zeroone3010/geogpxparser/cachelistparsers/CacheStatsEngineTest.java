@@ -0,0 +1,94 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.GeoXMLReader;
+import io.github.zeroone3010.geogpxparser.Geocache;
+import io.github.zeroone3010.geogpxparser.ParserTestFixture;
+import io.github.zeroone3010.geogpxparser.generator.GpxGenerator;
+import io.github.zeroone3010.geogpxparser.tabular.TableData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the CacheStatsEngine class.
+ */
+public class CacheStatsEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_tables_are_identical_to_separate_parsing() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final List<ICachesToTabularDataParser> parsers = Arrays.asList(new CacheListParser(), new OwnerStatsParser(),
+                new CountryStatsParser(), new StarChallengeParser(), new DateStatsParser());
+
+        final List<TableData> tables = new CacheStatsEngine(parsers.toArray(new ICachesToTabularDataParser[0]))
+                .getTabularInfo(caches);
+
+        assertEquals(parsers.size(), tables.size());
+        for (int i = 0; i < parsers.size(); i++) {
+            final TableData expected = parsers.get(i).getTabularInfo(caches);
+            assertEquals(expected.getIdentifier(), tables.get(i).getIdentifier());
+            assertEquals(expected.getRows(), tables.get(i).getRows());
+        }
+    }
+
+    @Test
+    public void test_parser_can_be_used_more_than_once() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final OwnerStatsParser parser = new OwnerStatsParser();
+        assertEquals(parser.getTabularInfo(caches).getRows(), parser.getTabularInfo(caches).getRows());
+    }
+
+    @Test
+    public void test_default_aggregator_collects_the_caches() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final ICachesToTabularDataParser parser = list -> new TableData(String.valueOf(list.size()));
+        assertEquals("5", new CacheStatsEngine(parser).getTabularInfo(caches).get(0).getIdentifier());
+    }
+
+    @Test
+    public void test_parallel_tables_are_identical_to_sequential_ones() throws IOException {
+        final File file = new File(folder.getRoot(), "generated.gpx");
+        new GpxGenerator().caches(5000).logsPerCache(2).owners(300).countries(40).write(file);
+        final List<Geocache> caches = new GeoXMLReader(file.getPath()).parse();
+
+        final List<TableData> sequential = newEngine().getTabularInfo(caches);
+        final List<TableData> parallel = newEngine().parallel(true).getTabularInfo(caches);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getRows(), parallel.get(i).getRows());
+        }
+    }
+
+    @Test
+    public void test_merged_states_keep_the_first_seen_order_of_groups() {
+        final List<Geocache> caches = ParserTestFixture.getGeocaches();
+        final OwnerStatsParser parser = new OwnerStatsParser();
+        final CacheAggregator<Map<String, AbstractCacheGroupStatsParser.Group>> aggregator = parser.newAggregator();
+
+        final Map<String, AbstractCacheGroupStatsParser.Group> first = aggregator.createState();
+        final Map<String, AbstractCacheGroupStatsParser.Group> second = aggregator.createState();
+        for (int i = 0; i < caches.size(); i++) {
+            aggregator.accumulate(i < 2 ? first : second, caches.get(i), -1, null);
+        }
+
+        assertEquals(parser.getTabularInfo(caches).getRows(),
+                aggregator.finish(aggregator.merge(first, second)).getRows());
+    }
+
+    private static CacheStatsEngine newEngine() {
+        return new CacheStatsEngine(new CacheListParser(), new OwnerStatsParser(), new CountryStatsParser(),
+                new StarChallengeParser(), new DateStatsParser());
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.ParserTestFixture;
+import io.github.zeroone3010.geogpxparser.tabular.TableRow;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.headerRow;
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.row;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the DifficultyTerrainGridParser.
+ */
+public class DifficultyTerrainGridParserTest {
+    @Test
+    public void test_getTabularInfo() {
+        final List<TableRow> rows = new DifficultyTerrainGridParser().getTabularInfo(ParserTestFixture.getGeocaches())
+                .getRows();
+        assertEquals(10, rows.size());
+
+        assertEquals(headerRow("D \\ T", "1.0", "1.5", "2.0", "2.5", "3.0", "3.5", "4.0", "4.5", "5.0", "Missing"),
+                rows.get(0));
+        assertEquals(row("1.0", "0", "0", "0", "0", "0", "0", "0", "0", "0",
+                "1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5, 5.0"), rows.get(1));
+        assertEquals(row("1.5", "0", "0", "0", "0", "0", "0", "0", "1", "0",
+                "1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 5.0"), rows.get(2));
+        assertEquals(row("2.0", "0", "0", "0", "0", "0", "0", "1", "0", "0",
+                "1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.5, 5.0"), rows.get(3));
+        assertEquals(row("3.0", "0", "0", "0", "0", "1", "0", "0", "0", "0",
+                "1.0, 1.5, 2.0, 2.5, 3.5, 4.0, 4.5, 5.0"), rows.get(5));
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.ParserTestFixture;
+import io.github.zeroone3010.geogpxparser.tabular.TableRow;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the FindCalendarParser.
+ */
+public class FindCalendarParserTest {
+    @Test
+    public void test_getTabularInfo() {
+        final List<TableRow> rows = new FindCalendarParser().getTabularInfo(ParserTestFixture.getGeocaches())
+                .getRows();
+        assertEquals(13, rows.size());
+
+        assertEquals("Month", cell(rows.get(0), 0));
+        assertEquals("31", cell(rows.get(0), 31));
+        assertEquals("Missing", cell(rows.get(0), 32));
+
+        // February has a leap day but no 30th or 31st:
+        assertEquals("Feb", cell(rows.get(2), 0));
+        assertEquals("0", cell(rows.get(2), 29));
+        assertEquals("", cell(rows.get(2), 30));
+        assertEquals("", cell(rows.get(2), 31));
+
+        // Three finds on August 13th and one on October 13th:
+        assertEquals("3", cell(rows.get(8), 13));
+        assertEquals("1", cell(rows.get(10), 13));
+        assertEquals("1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, "
+                + "28, 29, 30, 31", cell(rows.get(8), 32));
+        assertEquals("1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, "
+                + "27, 28, 29, 30", cell(rows.get(11), 32));
+    }
+
+    private static String cell(final TableRow row, final int index) {
+        return row.getCells().get(index).getText();
+    }
+}
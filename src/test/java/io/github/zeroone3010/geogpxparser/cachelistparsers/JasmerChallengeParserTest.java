@@ -0,0 +1,36 @@
+package io.github.zeroone3010.geogpxparser.cachelistparsers;
+
+import io.github.zeroone3010.geogpxparser.ParserTestFixture;
+import io.github.zeroone3010.geogpxparser.tabular.TableRow;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.headerRow;
+import static io.github.zeroone3010.geogpxparser.ParserTestFixture.row;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the JasmerChallengeParser.
+ */
+public class JasmerChallengeParserTest {
+    @Test
+    public void test_getTabularInfo() {
+        final List<TableRow> rows = new JasmerChallengeParser().getTabularInfo(ParserTestFixture.getGeocaches())
+                .getRows();
+        // From 2000 to 2005, the year of the last hidden cache that has been found:
+        assertEquals(7, rows.size());
+
+        assertEquals(headerRow("Year", "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov",
+                "Dec", "Missing"), rows.get(0));
+        assertEquals(row("2000", "", "", "", "", "0", "0", "0", "0", "0", "0", "0", "0",
+                "May, Jun, Jul, Aug, Sep, Oct, Nov, Dec"), rows.get(1));
+        // The cache of 2001 has not been found:
+        assertEquals(row("2001", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0",
+                "Jan, Feb, Mar, Apr, May, Jun, Jul, Aug, Sep, Oct, Nov, Dec"), rows.get(2));
+        assertEquals(row("2002", "0", "0", "1", "0", "0", "0", "0", "0", "0", "0", "0", "0",
+                "Jan, Feb, Apr, May, Jun, Jul, Aug, Sep, Oct, Nov, Dec"), rows.get(3));
+        assertEquals(row("2005", "0", "0", "0", "0", "0", "0", "0", "0", "1", "0", "0", "0",
+                "Jan, Feb, Mar, Apr, May, Jun, Jul, Aug, Oct, Nov, Dec"), rows.get(6));
+    }
+}
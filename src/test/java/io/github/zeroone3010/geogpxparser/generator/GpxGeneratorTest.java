@@ -0,0 +1,70 @@
+package io.github.zeroone3010.geogpxparser.generator;
+
+import io.github.zeroone3010.geogpxparser.CacheType;
+import io.github.zeroone3010.geogpxparser.GeoXMLReader;
+import io.github.zeroone3010.geogpxparser.Geocache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GpxGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_generated_file_can_be_parsed() throws IOException {
+        final File file = new File(folder.getRoot(), "generated.gpx");
+        new GpxGenerator().caches(200).logsPerCache(3).owners(10).countries(5).write(file);
+
+        final List<Geocache> caches = new GeoXMLReader(file.getPath()).parse();
+        assertEquals(200, caches.size());
+        for (final Geocache cache : caches) {
+            assertEquals(3, cache.getLogs().size());
+            assertNotNull(cache.getHidden());
+            assertNotNull(cache.getType());
+            assertNotNull(cache.getSize());
+            assertTrue(cache.getDifficulty() >= 1 && cache.getDifficulty() <= 5);
+            assertTrue(cache.getTerrain() >= 1 && cache.getTerrain() <= 5);
+        }
+        assertEquals(200, caches.stream().map(Geocache::getGcCode).distinct().count());
+        assertTrue(caches.stream().map(Geocache::getOwner).distinct().count() <= 10);
+        assertTrue(caches.stream().map(Geocache::getCountry).distinct().count() <= 5);
+        assertTrue(caches.stream().filter(c -> c.getType() == CacheType.Traditional).count() > 80);
+    }
+
+    @Test
+    public void test_gzipped_file_can_be_parsed() throws IOException {
+        final File file = new File(folder.getRoot(), "generated.gpx.gz");
+        new GpxGenerator().caches(20).write(file);
+        assertEquals(20, new GeoXMLReader(file.getPath()).parse().size());
+    }
+
+    @Test
+    public void test_same_seed_produces_same_file() throws IOException {
+        assertArrayEquals(generate(5), generate(5));
+        assertFalse(new String(generate(5)).equals(new String(generate(6))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_owners_cannot_be_zero() {
+        new GpxGenerator().owners(0);
+    }
+
+    private static byte[] generate(final long seed) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new GpxGenerator().caches(10).seed(seed).write(output);
+        return output.toByteArray();
+    }
+}